@@ -1,6 +1,11 @@
 package com.onlinestore.art_supplies.category;
 
+import com.onlinestore.art_supplies.config.CacheConfig;
+import com.onlinestore.art_supplies.products.ProductSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,12 +16,15 @@ import java.util.List;
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductSearchIndex productSearchIndex) {
         this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public Category addCategory(Category category) {
         if (categoryRepository.existsByCategoryName(category.getCategoryName())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category already exists with name: " + category.getCategoryName());
@@ -24,6 +32,11 @@ public class CategoryService {
         return categoryRepository.save(category);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY_PRODUCTS, key = "#categoryName.toLowerCase(T(java.util.Locale).ROOT)"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
+    })
     public Category updateCategoryByName(String categoryName, String newCategoryName) {
         Category existingCategory = categoryRepository.findByCategoryName(categoryName);
         if (existingCategory == null) {
@@ -33,10 +46,16 @@ public class CategoryService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category already exists with name: " + newCategoryName);
         }
         existingCategory.setCategoryName(newCategoryName);
-        return categoryRepository.save(existingCategory);
+        Category savedCategory = categoryRepository.save(existingCategory);
+        productSearchIndex.reindexCategory(savedCategory.getCategoryId());
+        return savedCategory;
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY_PRODUCTS, key = "#categoryName.toLowerCase(T(java.util.Locale).ROOT)")
+    })
     public void deleteCategoryByName(String categoryName) {
         if (categoryRepository.existsByCategoryName(categoryName)) {
             categoryRepository.deleteByCategoryName(categoryName);
@@ -45,8 +64,9 @@ public class CategoryService {
         }
     }
 
+    @Cacheable(CacheConfig.CATEGORIES)
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return List.copyOf(categoryRepository.findAll());
     }
 
     public Category getCategoryById(Long categoryId) {
@@ -0,0 +1,32 @@
+package com.onlinestore.art_supplies.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded catalog caches. Each cache has its own size/TTL spec (Caffeine spec syntax) and records hit, miss and
+ * eviction stats, which actuator publishes under the cache.* metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_PRODUCTS = "categoryProducts";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${catalog.cache.products}") String productsSpec,
+                                     @Value("${catalog.cache.categories}") String categoriesSpec,
+                                     @Value("${catalog.cache.category-products}") String categoryProductsSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.from(productsSpec).recordStats().build());
+        cacheManager.registerCustomCache(CATEGORIES, Caffeine.from(categoriesSpec).recordStats().build());
+        cacheManager.registerCustomCache(CATEGORY_PRODUCTS, Caffeine.from(categoryProductsSpec).recordStats().build());
+        return cacheManager;
+    }
+}
@@ -27,6 +27,6 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, String>> handleResponseStatusException(ResponseStatusException e) {
         Map<String, String> response = new HashMap<>();
         response.put("message", e.getReason());
-        return new ResponseEntity<>(response, e.getStatusCode());
+        return new ResponseEntity<>(response, e.getHeaders(), e.getStatusCode());
     }
 }
@@ -0,0 +1,92 @@
+package com.onlinestore.art_supplies.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows from a repository {@link Stream} straight to the response, either as one JSON array or as
+ * newline-delimited JSON, so the full result set never has to be held in memory.
+ */
+@Component
+public class JsonStreamWriter {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public JsonStreamWriter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public enum Format {
+        JSON, NDJSON;
+
+        public static Format from(String value) {
+            return value != null && value.toLowerCase(Locale.ROOT).equals("ndjson") ? NDJSON : JSON;
+        }
+    }
+
+    /**
+     * The supplier is invoked on the response-writing thread, inside a read-only transaction that stays open
+     * until the last row has been written. Loaded entities are cleared from the persistence context every
+     * {@value #FLUSH_INTERVAL} rows, when the output is flushed.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> rows, Format format) {
+        StreamingResponseBody body = outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                if (format == Format.NDJSON) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    generator.writeStartArray();
+                }
+                int written = 0;
+                for (Iterator<T> iterator = stream.iterator(); iterator.hasNext(); ) {
+                    rowWriter.writeValue(generator, iterator.next());
+                    if (++written % FLUSH_INTERVAL == 0) {
+                        entityManager.clear();
+                        generator.flush();
+                    }
+                }
+                if (format == Format.NDJSON) {
+                    if (written > 0) {
+                        generator.writeRaw('\n');
+                    }
+                } else {
+                    generator.writeEndArray();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        MediaType contentType = format == Format.NDJSON ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+}
@@ -0,0 +1,81 @@
+package com.onlinestore.art_supplies.config.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that follows latency, AIMD style: every request that completes close to the lowest latency seen
+ * while the limit was in use raises the limit by one, and a request that is much slower than that or fails cuts it by
+ * {@code backoffRatio}. The lowest latency is measured again every {@code probeSamples} requests so it follows lasting
+ * changes. Requests over the limit are not queued; {@link #tryAcquire} just says no.
+ */
+final class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int probeSamples;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+
+    // guarded by this
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private int samples;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                               double latencyTolerance, int probeSamples) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.probeSamples = probeSamples;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back and adjusts the limit for how the request went.
+     */
+    void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (!failed && ++samples >= probeSamples) {
+                samples = 0;
+                minLatencyNanos = latencyNanos;
+            } else if (!failed) {
+                minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+            }
+            if (failed || latencyNanos > minLatencyNanos * latencyTolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightBefore * 2 >= limit) {
+                // only grow while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,77 @@
+package com.onlinestore.art_supplies.config.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AdaptiveConcurrencyLimiter} per {@link ConcurrencyLimited} name, shared by the whole server and set up
+ * from the {@code concurrency.limit.*} properties. Each limiter reports {@code concurrency.limit},
+ * {@code concurrency.inflight} and {@code concurrency.rejected}, tagged with its name.
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int probeSamples;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitConfig(MeterRegistry meterRegistry,
+                                  @Value("${concurrency.limit.initial:20}") int initialLimit,
+                                  @Value("${concurrency.limit.min:2}") int minLimit,
+                                  @Value("${concurrency.limit.max:200}") int maxLimit,
+                                  @Value("${concurrency.limit.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${concurrency.limit.latency-tolerance:2.0}") double latencyTolerance,
+                                  @Value("${concurrency.limit.probe-samples:500}") int probeSamples) {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.probeSamples = probeSamples;
+    }
+
+    @Bean
+    public WebMvcConfigurer concurrencyLimitConfigurer() {
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(this::limiter);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(String name) {
+        return limiters.computeIfAbsent(name, key -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                    backoffRatio, latencyTolerance, probeSamples);
+            Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("name", key)
+                    .register(meterRegistry);
+            Gauge.builder("concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests holding a slot of the concurrency limit")
+                    .tag("name", key)
+                    .register(meterRegistry);
+            FunctionCounter.builder("concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .description("Requests turned away because the concurrency limit was reached")
+                    .tag("name", key)
+                    .register(meterRegistry);
+            return limiter;
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.onlinestore.art_supplies.config.concurrency;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The handler's concurrency limit is reached. Answered with 503 and {@code Retry-After: 1}.
+ */
+public class ConcurrencyLimitExceededException extends ResponseStatusException {
+
+    public ConcurrencyLimitExceededException(String name) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy (" + name + "), please try again shortly");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
@@ -0,0 +1,53 @@
+package com.onlinestore.art_supplies.config.concurrency;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.function.Function;
+
+/**
+ * Takes a slot of the handler's {@link ConcurrencyLimited} limit before the handler runs and gives it back, with the
+ * request's latency, once the response is complete. For streamed responses that is after the async dispatch, so the
+ * slot covers the streaming too. Requests that get no slot fail with {@link ConcurrencyLimitExceededException}.
+ */
+class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Function<String, AdaptiveConcurrencyLimiter> limiters;
+
+    ConcurrencyLimitInterceptor(Function<String, AdaptiveConcurrencyLimiter> limiters) {
+        this.limiters = limiters;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        ConcurrencyLimited limited = method.getMethodAnnotation(ConcurrencyLimited.class);
+        if (limited == null) {
+            return true;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.apply(limited.value());
+        if (!limiter.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(limited.value());
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.limiter().release(System.nanoTime() - permit.startNanos(), ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    private record Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+    }
+}
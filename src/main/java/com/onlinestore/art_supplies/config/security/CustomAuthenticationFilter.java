@@ -1,22 +1,28 @@
 package com.onlinestore.art_supplies.config.security;
 
 import com.onlinestore.art_supplies.users.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 @Component
 public class CustomAuthenticationFilter extends OncePerRequestFilter {
+    private static final String CLAIMS_ATTRIBUTE = CustomAuthenticationFilter.class.getName() + ".claims";
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService customUserDetailsService;
@@ -26,33 +32,64 @@ public class CustomAuthenticationFilter extends OncePerRequestFilter {
         this.customUserDetailsService = customUserDetailsService;
     }
 
+    /**
+     * Defers authentication until something reads the security context, so requests to public pages that never look at
+     * the user don't verify the token or load the user.
+     */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String token = extractTokenFromCookie(request);
-        logger.info("Token extracted from cookie: " + token);
-        if (token != null) {
-            try {
-                String username = jwtUtils.getClaim(token, "sub", String.class);
-                logger.info("Username extracted: " + username);
+        if (extractTokenFromCookie(request) != null) {
+            SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+            Supplier<SecurityContext> deferredContext = strategy.getDeferredContext();
+            strategy.setDeferredContext(SingletonSupplier.of(() -> authenticate(request, deferredContext.get())));
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private SecurityContext authenticate(HttpServletRequest request, SecurityContext context) {
+        if (context.getAuthentication() != null) {
+            return context;
+        }
+        try {
+            Claims claims = getVerifiedClaims(request);
+            String username = claims == null ? null : claims.getSubject();
+            logger.debug("Username extracted: " + username);
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+            if (username != null) {
+                UserDetails userDetails = customUserDetailsService.loadPrincipal(username);
 
-                    if (jwtUtils.validateToken(token, userDetails)) {
-                        UsernamePasswordAuthenticationToken auth =
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                        SecurityContextHolder.getContext().setAuthentication(auth);
-                    }
+                if (jwtUtils.validateToken(claims, userDetails)) {
+                    UsernamePasswordAuthenticationToken auth =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    context.setAuthentication(auth);
                 }
-            } catch (Exception e) {
-                logger.error("Token validation failed: " + e.getMessage());
             }
+        } catch (Exception e) {
+            logger.error("Token validation failed: " + e.getMessage());
         }
+        return context;
+    }
 
-        filterChain.doFilter(request, response);
+    /**
+     * Claims of the request's token, verified on first use and kept for the rest of the request. Null when there is no
+     * token.
+     */
+    public Claims getVerifiedClaims(HttpServletRequest request) {
+        if (request.getAttribute(CLAIMS_ATTRIBUTE) instanceof Claims claims) {
+            return claims;
+        }
+        String token = extractTokenFromCookie(request);
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        Claims claims = jwtUtils.verify(token);
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        return claims;
     }
+
     public String extractTokenFromCookie(HttpServletRequest request) {
         if (request.getCookies() != null) {
             return Arrays.stream(request.getCookies())
@@ -1,19 +1,68 @@
 package com.onlinestore.art_supplies.config.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.onlinestore.art_supplies.users.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies the login tokens. Verified claims are cached by a SHA-256 hash of the token until the token
+ * expires, so the HMAC signature of a token is checked once rather than on every lookup.
+ */
 @Service
 public class JwtUtils {
     private static final String SECRET_KEY = "your-very-secret-key-must-be-at-least-32-characters";
     private static final long EXPIRATION_TIME = 1000 * 60 * 60; // 1 hour
     private static SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtUtils() {
+        this(10_000);
+    }
+
+    @Autowired
+    public JwtUtils(@Value("${jwt.claims-cache.maximum-size:10000}") long maximumSize) {
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        long millis = expiration == null ? EXPIRATION_TIME : expiration.getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public String generateToken(User user) {
         return Jwts.builder()
@@ -24,22 +73,52 @@ public class JwtUtils {
                 .compact();
     }
 
+    /**
+     * The token's claims, parsed and checked (signature and expiry) the first time the token is seen.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, badly signed or expired
+     */
+    public Claims verify(String token) {
+        return verifiedClaims.get(hash(token), tokenHash -> parser.parseClaimsJws(token).getBody());
+    }
+
     public <T> T getClaim(String token, String claim, Class<T> requiredType) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get(claim, requiredType);
+        return verify(token).get(claim, requiredType);
+    }
+
+    /**
+     * HMAC of {@code value} under the token signing key, base64url without padding. For values the browser keeps and
+     * sends back, such as the anonymous cart cookie.
+     */
+    public String sign(String value) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign with the token key", e);
+        }
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        String username = getClaim(token, "sub", String.class);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(verify(token), userDetails);
+    }
+
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
+    }
+
+    private static boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration == null || expiration.before(new Date());
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = getClaim(token, "exp", Date.class);
-        return expiration.before(new Date());
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.onlinestore.art_supplies.config.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * The password hashing queue is full. Answered with 429 and a {@code Retry-After} header.
+ */
+public class PasswordHashingBusyException extends ResponseStatusException {
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many logins at the moment, please try again shortly");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
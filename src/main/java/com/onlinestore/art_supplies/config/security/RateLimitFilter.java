@@ -0,0 +1,68 @@
+package com.onlinestore.art_supplies.config.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RateLimiter} to each request, per user when the request carries a valid token and per client IP
+ * otherwise. Limited routes get {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+ * headers; requests over the limit are answered 429 with {@code Retry-After}.
+ */
+class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+    private final CustomAuthenticationFilter authenticationFilter;
+
+    RateLimitFilter(RateLimiter rateLimiter, CustomAuthenticationFilter authenticationFilter) {
+        this.rateLimiter = rateLimiter;
+        this.authenticationFilter = authenticationFilter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucket.Probe probe = rateLimiter.tryAcquire(request, () -> clientKey(request));
+        if (probe != null) {
+            response.setHeader("RateLimit-Limit", String.valueOf(probe.limit()));
+            response.setHeader("RateLimit-Remaining", String.valueOf(probe.remaining()));
+            response.setHeader("RateLimit-Reset", String.valueOf(seconds(probe.resetNanos())));
+            if (!probe.allowed()) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds(probe.retryAfterNanos()))));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"message\":\"Too many requests, please slow down\"}");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * The token's subject, or the client address when there is no valid token. Behind a trusted proxy the address is
+     * the forwarded client's ({@code server.forward-headers-strategy}).
+     */
+    private String clientKey(HttpServletRequest request) {
+        try {
+            Claims claims = authenticationFilter.getVerifiedClaims(request);
+            if (claims != null && claims.getSubject() != null) {
+                return "user:" + claims.getSubject();
+            }
+        } catch (RuntimeException e) {
+            // an invalid token counts against the address it came from
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.onlinestore.art_supplies.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-client token buckets for the routes listed in {@code rate-limit.routes}, given as
+ * {@code pattern=capacity/period} pairs: a client may make {@code capacity} requests at once, and the bucket refills
+ * at {@code capacity} tokens per {@code period}. The first matching route applies; other routes are not limited.
+ * <p>
+ * Buckets live in a bounded cache ({@code rate-limit.buckets}); a bucket dropped after being idle comes back full, so
+ * the idle timeout should be longer than the longest period.
+ */
+@Component
+class RateLimiter {
+    private final List<Route> routes;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    @Autowired
+    RateLimiter(MeterRegistry meterRegistry,
+                @Value("${rate-limit.routes:}") String routes,
+                @Value("${rate-limit.buckets:maximumSize=100000,expireAfterAccess=10m}") String bucketsSpec) {
+        this(meterRegistry, routes, bucketsSpec, System::nanoTime);
+    }
+
+    RateLimiter(MeterRegistry meterRegistry, String routes, String bucketsSpec, LongSupplier clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.routes = Arrays.stream(StringUtils.commaDelimitedListToStringArray(routes))
+                .map(String::trim)
+                .filter(route -> !route.isEmpty())
+                .map(this::parseRoute)
+                .toList();
+        this.buckets = Caffeine.from(bucketsSpec).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+    }
+
+    /**
+     * Takes a token from the client's bucket for the request's route; null when the route is not limited. The client
+     * key is only worked out for limited routes.
+     */
+    TokenBucket.Probe tryAcquire(HttpServletRequest request, Supplier<String> clientKey) {
+        Route route = routes.stream()
+                .filter(candidate -> candidate.matcher().matches(request))
+                .findFirst()
+                .orElse(null);
+        if (route == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        TokenBucket.Probe probe = buckets.get(route.pattern() + " " + clientKey.get(),
+                key -> new TokenBucket(route.capacity(), route.nanosPerToken(), now)).tryConsume(now);
+        if (!probe.allowed()) {
+            route.rejected().increment();
+        }
+        return probe;
+    }
+
+    private Route parseRoute(String route) {
+        int equals = route.lastIndexOf('=');
+        int slash = route.lastIndexOf('/');
+        if (equals < 0 || slash < equals) {
+            throw new IllegalArgumentException("Rate limit route must look like pattern=capacity/period: " + route);
+        }
+        String pattern = route.substring(0, equals).trim();
+        long capacity = Long.parseLong(route.substring(equals + 1, slash).trim());
+        Duration period = DurationStyle.detectAndParse(route.substring(slash + 1).trim());
+        if (capacity <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit capacity and period must be positive: " + route);
+        }
+        Counter rejected = Counter.builder("ratelimit.rejected")
+                .description("Requests turned away by the rate limiter")
+                .tag("route", pattern)
+                .register(meterRegistry);
+        return new Route(pattern, new AntPathRequestMatcher(pattern), capacity, period.toNanos() / capacity, rejected);
+    }
+
+    private record Route(String pattern, AntPathRequestMatcher matcher, long capacity, long nanosPerToken,
+                         Counter rejected) {
+    }
+}
@@ -2,8 +2,10 @@ package com.onlinestore.art_supplies.config.security;
 
 import com.onlinestore.art_supplies.users.CustomUserDetailsService;
 import jakarta.servlet.http.Cookie;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -11,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,25 +21,63 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
+    /**
+     * Files served as they are. They never need the user, so they get a chain without the token filter.
+     */
+    static final String[] STATIC_RESOURCES = {"/css/**", "/images/**", "/js/**", "/favicon.ico", "/swagger-ui/**"};
+
+    /**
+     * Pages anyone can see. The user is only resolved when the page asks for it.
+     */
+    static final String[] PUBLIC_PAGES = {"/login", "/logout", "/register", "/v3/api-docs/**", "/", "products/**",
+            "/contact", "/about", "/cart", "/cart/**", "/h2-console/**"};
 
     private final CustomUserDetailsService customUserDetailsService;
     private final CustomAuthenticationFilter filter;
+    private final RateLimiter rateLimiter;
 
-    public SecurityConfig(CustomUserDetailsService customUserDetailsService, CustomAuthenticationFilter filter) {
+    public SecurityConfig(CustomUserDetailsService customUserDetailsService, CustomAuthenticationFilter filter,
+                          RateLimiter rateLimiter) {
         this.customUserDetailsService = customUserDetailsService;
         this.filter = filter;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain staticResourcesFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(STATIC_RESOURCES)
+                .authorizeHttpRequests(request -> request.anyRequest().permitAll())
+                .csrf(customizer -> customizer.disable())
+                .headers(headers -> headers.disable())
+                .requestCache(cache -> cache.disable())
+                .securityContext(context -> context.disable())
+                .anonymous(anonymous -> anonymous.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
     }
 
+    /**
+     * The filter only runs inside the security chains; as a bean it would otherwise also be registered with the
+     * servlet container for every request.
+     */
     @Bean
+    public FilterRegistrationBean<CustomAuthenticationFilter> customAuthenticationFilterRegistration() {
+        FilterRegistrationBean<CustomAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(customizer -> customizer.disable())
                 .headers(headers -> headers.defaultsDisabled()
                         .frameOptions(frameOptionsConfig -> frameOptionsConfig.sameOrigin()))
                 .authorizeHttpRequests(request -> request
-                        .requestMatchers("/login", "/logout", "/register", "/swagger-ui/**", "/v3/api-docs/**", "/",
-                                "/css/**", "/images/**", "products/**", "/favicon.ico", "/contact", "/about",
-                                "/h2-console/**")
+                        .requestMatchers(PUBLIC_PAGES)
                         .permitAll()
                         .anyRequest().authenticated())
                 .logout(logout -> logout
@@ -56,23 +95,20 @@ public class SecurityConfig {
 //        .formLogin(Customizer.withDefaults())  // use form login for browser
 //                .httpBasic(Customizer.withDefaults())   // work good and in postman, we can disable one of this or both but won't have the login form
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);  // don't create session
+                .addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class)  // don't create session
+                .addFilterAfter(new RateLimitFilter(rateLimiter, filter), CustomAuthenticationFilter.class);
         return http.build();
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         provider.setUserDetailsService(customUserDetailsService);
+        provider.setUserDetailsPasswordService(customUserDetailsService);
         return provider;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
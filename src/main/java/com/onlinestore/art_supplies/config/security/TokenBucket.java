@@ -0,0 +1,45 @@
+package com.onlinestore.art_supplies.config.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept in one {@link AtomicLong} and updated by compare-and-set, so concurrent requests of a client
+ * never block each other. Instead of a token count it stores the time at which the bucket will be full again; the
+ * tokens left follow from how far that time is ahead of now.
+ */
+final class TokenBucket {
+    private final long capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long capacity, long nanosPerToken, long now) {
+        this.capacity = capacity;
+        this.nanosPerToken = nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token if there is one.
+     */
+    Probe tryConsume(long now) {
+        long burst = capacity * nanosPerToken;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            if (next - now > burst) {
+                long full = Math.max(current, now) - now;
+                return new Probe(false, capacity, 0, full, next - burst - now);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new Probe(true, capacity, (now + burst - next) / nanosPerToken, next - now, 0);
+            }
+        }
+    }
+
+    /**
+     * Outcome of {@link #tryConsume}: whether the request may go on, the tokens left, the nanos until the bucket is
+     * full again and, when rejected, the nanos until the next token.
+     */
+    record Probe(boolean allowed, long limit, long remaining, long resetNanos, long retryAfterNanos) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.onlinestore.art_supplies.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+    public static final int MAX_OPERATIONS = 100;
+
+    @NotEmpty(message = "Operations cannot be empty.")
+    @Size(max = MAX_OPERATIONS, message = "At most " + MAX_OPERATIONS + " operations per request.")
+    private List<@Valid CartOperation> operations;
+}
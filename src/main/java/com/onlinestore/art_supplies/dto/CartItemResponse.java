@@ -0,0 +1,7 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.math.BigDecimal;
+
+public record CartItemResponse(Long productId, String productName, BigDecimal price, Integer quantity,
+                               BigDecimal lineTotal) {
+}
@@ -0,0 +1,29 @@
+package com.onlinestore.art_supplies.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    public static final int MAX_QUANTITY = 10_000;
+
+    public enum Action {
+        ADD, UPDATE, REMOVE
+    }
+
+    @NotNull(message = "Action cannot be null.")
+    private Action action;
+
+    @NotNull(message = "Product ID cannot be null.")
+    private Long productId;
+
+    @Min(value = 1, message = "Quantity must be at least 1.")
+    @Max(value = MAX_QUANTITY, message = "Quantity must be at most " + MAX_QUANTITY + ".")
+    private Integer quantity;
+}
@@ -0,0 +1,13 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CartResponse(List<CartItemResponse> items, int totalQuantity, BigDecimal totalAmount) {
+
+    public static CartResponse of(List<CartItemResponse> items) {
+        return new CartResponse(items,
+                items.stream().mapToInt(CartItemResponse::quantity).sum(),
+                items.stream().map(CartItemResponse::lineTotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+}
@@ -0,0 +1,10 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as {@code cursor} to fetch the
+ * following page; {@code totalElements} is only filled in when the caller asked for it.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext, Long totalElements) {
+}
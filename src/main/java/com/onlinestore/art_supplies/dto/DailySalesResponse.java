@@ -0,0 +1,7 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailySalesResponse(LocalDate day, Long units, BigDecimal revenue) {
+}
@@ -0,0 +1,9 @@
+package com.onlinestore.art_supplies.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+public record OrderItemResponse(@JsonIgnore Long orderId, Long productId, String productName, Integer quantity,
+                                BigDecimal price) {
+}
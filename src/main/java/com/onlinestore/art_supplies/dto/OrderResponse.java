@@ -0,0 +1,20 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderResponse(Long orderId, LocalDateTime orderDate, BigDecimal totalAmount,
+                            List<OrderItemResponse> items) {
+
+    /**
+     * Used by the JPQL constructor expression that loads the order header; the items are attached afterwards.
+     */
+    public OrderResponse(Long orderId, LocalDateTime orderDate, BigDecimal totalAmount) {
+        this(orderId, orderDate, totalAmount, List.of());
+    }
+
+    public OrderResponse withItems(List<OrderItemResponse> items) {
+        return new OrderResponse(orderId, orderDate, totalAmount, items);
+    }
+}
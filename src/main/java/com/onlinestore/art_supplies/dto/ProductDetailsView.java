@@ -0,0 +1,9 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record ProductDetailsView(ProductResponse product, double averageRating, List<ReviewResponse> reviews,
+                                 boolean canReview, boolean canRate, Map<Long, Boolean> canEditMap,
+                                 Map<Long, Boolean> canDeleteMap, int queryCount) {
+}
@@ -0,0 +1,17 @@
+package com.onlinestore.art_supplies.dto;
+
+import com.onlinestore.art_supplies.products.Product;
+
+import java.math.BigDecimal;
+
+public record ProductResponse(Long productId, String productName, String description, BigDecimal price,
+                              int quantity, Long categoryId, String categoryName, String image) {
+
+    public static ProductResponse from(Product product) {
+        return new ProductResponse(product.getProductId(), product.getProductName(), product.getDescription(),
+                product.getPrice(), product.getQuantity(),
+                product.getCategory() == null ? null : product.getCategory().getCategoryId(),
+                product.getCategory() == null ? null : product.getCategory().getCategoryName(),
+                product.getImage());
+    }
+}
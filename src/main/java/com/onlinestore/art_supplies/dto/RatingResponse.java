@@ -0,0 +1,11 @@
+package com.onlinestore.art_supplies.dto;
+
+import com.onlinestore.art_supplies.ratings.Rating;
+
+public record RatingResponse(Long ratingId, Long productId, Long userId, String username, Integer rating) {
+
+    public static RatingResponse from(Rating rating) {
+        return new RatingResponse(rating.getRatingId(), rating.getProduct().getProductId(),
+                rating.getUser().getUserId(), rating.getUser().getUsername(), rating.getRating());
+    }
+}
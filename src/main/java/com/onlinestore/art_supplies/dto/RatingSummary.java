@@ -0,0 +1,19 @@
+package com.onlinestore.art_supplies.dto;
+
+import com.onlinestore.art_supplies.ratings.ProductRatingStats;
+
+import java.util.List;
+
+/**
+ * Rating count, average and the number of 1 to 5 star ratings (in that order) of a product.
+ */
+public record RatingSummary(Long productId, long count, double average, List<Long> distribution) {
+
+    public static RatingSummary from(ProductRatingStats stats) {
+        return new RatingSummary(stats.getProductId(), stats.getRatingCount(), stats.getAverage(), stats.getDistribution());
+    }
+
+    public static RatingSummary empty(Long productId) {
+        return new RatingSummary(productId, 0, 0.0, List.of(0L, 0L, 0L, 0L, 0L));
+    }
+}
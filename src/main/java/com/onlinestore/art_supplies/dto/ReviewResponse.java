@@ -0,0 +1,15 @@
+package com.onlinestore.art_supplies.dto;
+
+import com.onlinestore.art_supplies.reviews.Review;
+
+import java.time.LocalDateTime;
+
+public record ReviewResponse(Long reviewId, Long productId, Long userId, String username, String reviewText,
+                             LocalDateTime createdAt) {
+
+    public static ReviewResponse from(Review review) {
+        return new ReviewResponse(review.getReviewId(), review.getProduct().getProductId(),
+                review.getUser().getUserId(), review.getUser().getUsername(), review.getReviewText(),
+                review.getCreatedAt());
+    }
+}
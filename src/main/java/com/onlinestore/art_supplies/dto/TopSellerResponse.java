@@ -0,0 +1,6 @@
+package com.onlinestore.art_supplies.dto;
+
+import java.math.BigDecimal;
+
+public record TopSellerResponse(Long productId, String productName, Long units, BigDecimal revenue) {
+}
@@ -1,5 +1,7 @@
 package com.onlinestore.art_supplies.order;
 
+import com.onlinestore.art_supplies.dto.OrderResponse;
+import com.onlinestore.art_supplies.dto.PageResponse;
 import com.onlinestore.art_supplies.order.orderitem.OrderItemRepository;
 import com.onlinestore.art_supplies.users.User;
 import com.onlinestore.art_supplies.users.UserRepository;
@@ -7,13 +9,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
-
 @Tag(name = "Order Controller", description = "Operations related to orders")
 @RestController
 @RequestMapping("/order")
@@ -67,27 +67,21 @@ public class OrderController {
 
     @GetMapping("/history")
     @Operation(summary = "Get order history",
-            description = "Get order history for a user by username",
+            description = "Get one page of the order history of the logged in user, newest first",
             parameters = {
-                    @Parameter(name = "username", description = "The username of the user", required = true, example = "ion")
+                    @Parameter(name = "page", description = "Zero-based page number", example = "0"),
+                    @Parameter(name = "size", description = "Orders per page (max 50)", example = "10")
             },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Orders found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid page or size"),
                     @ApiResponse(responseCode = "403", description = "User is not logged in"),
                     @ApiResponse(responseCode = "404", description = "User not found")
             })
-    public List<Order> getOrderHistory(@AuthenticationPrincipal User user) {
-        if (user == null) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not logged in");
-        }
-//        List<Order> orders = orderService.getOrderHistory(user);
-//        for (Order order : orders) {
-//            List<OrderItem> orderItems = orderItemRepository.findByOrder(order);
-//            order.setOrderItems(orderItems);
-//        }
-
-//        return orders;
-        return null;
+    public PageResponse<OrderResponse> getOrderHistory(@RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "" + OrderService.ORDERS_PER_PAGE) int size,
+                                                       HttpServletRequest request) {
+        return PageResponse.from(orderService.getOrderHistoryResponses(request, page, size));
     }
 
 //    @GetMapping("/items")
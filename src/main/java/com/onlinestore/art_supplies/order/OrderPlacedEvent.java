@@ -0,0 +1,24 @@
+package com.onlinestore.art_supplies.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outbox payload written by checkout for everything that happens after an order is placed.
+ */
+public record OrderPlacedEvent(Long orderId, Long userId, LocalDateTime orderDate, BigDecimal totalAmount,
+                               List<Item> items) {
+    public static final String TYPE = "order.placed";
+
+    public record Item(Long productId, String productName, Long categoryId, Integer quantity, BigDecimal price) {
+    }
+
+    public static OrderPlacedEvent from(Order order) {
+        return new OrderPlacedEvent(order.getOrderId(), order.getUser().getUserId(), order.getOrderDate(),
+                order.getTotalAmount(), order.getOrderItems().stream()
+                .map(item -> new Item(item.getProduct().getProductId(), item.getProduct().getProductName(),
+                        item.getCategoryId(), item.getQuantity(), item.getPrice()))
+                .toList());
+    }
+}
@@ -0,0 +1,31 @@
+package com.onlinestore.art_supplies.order;
+
+import com.onlinestore.art_supplies.outbox.OutboxHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs placed orders and their items, off the checkout request.
+ */
+@Slf4j
+@Component
+public class OrderPlacedLogHandler implements OutboxHandler<OrderPlacedEvent> {
+
+    @Override
+    public String eventType() {
+        return OrderPlacedEvent.TYPE;
+    }
+
+    @Override
+    public Class<OrderPlacedEvent> payloadType() {
+        return OrderPlacedEvent.class;
+    }
+
+    @Override
+    public void handle(OrderPlacedEvent event) {
+        log.info("Order {} placed by user {}: total {}", event.orderId(), event.userId(), event.totalAmount());
+        for (OrderPlacedEvent.Item item : event.items()) {
+            log.info("OrderItem: {} - {}", item.productName(), item.quantity());
+        }
+    }
+}
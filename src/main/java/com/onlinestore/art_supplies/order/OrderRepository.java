@@ -1,17 +1,38 @@
 package com.onlinestore.art_supplies.order;
 
-import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.dto.OrderResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.user.userId = :userId")
-    List<Order> findByUser_UserId(@Param("userId") Long userId);
+    /**
+     * Sorted page of a user's order ids; {@link #findWithItemsByOrderIdIn} then loads just that page, since paging a
+     * collection fetch join would happen in memory.
+     */
+    @Query(value = "SELECT o.orderId FROM Order o WHERE o.user.userId = :userId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId")
+    Page<Long> findOrderIdsByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    Boolean existsByUserAndOrderItems_Product_ProductId(User user, Long productId);
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product", "orderItems.product.category"})
+    @Query("SELECT o FROM Order o WHERE o.orderId IN :orderIds")
+    List<Order> findWithItemsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds, Sort sort);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.orderId = :orderId")
+    Optional<Order> findWithItemsByOrderId(@Param("orderId") Long orderId);
+
+    @Query(value = "SELECT new com.onlinestore.art_supplies.dto.OrderResponse(o.orderId, o.orderDate, o.totalAmount) " +
+            "FROM Order o WHERE o.user.userId = :userId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId")
+    Page<OrderResponse> findResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
 }
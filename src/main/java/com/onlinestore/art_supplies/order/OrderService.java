@@ -1,68 +1,101 @@
 package com.onlinestore.art_supplies.order;
 
+import com.onlinestore.art_supplies.dto.OrderItemResponse;
+import com.onlinestore.art_supplies.dto.OrderResponse;
 import com.onlinestore.art_supplies.order.cart.CartItem;
 import com.onlinestore.art_supplies.order.cart.CartService;
+import com.onlinestore.art_supplies.order.idempotency.CheckoutIdempotency;
 import com.onlinestore.art_supplies.order.orderitem.OrderItem;
+import com.onlinestore.art_supplies.order.orderitem.OrderItemRepository;
+import com.onlinestore.art_supplies.outbox.Outbox;
+import com.onlinestore.art_supplies.products.InsufficientStockException;
+import com.onlinestore.art_supplies.products.InventoryLedger;
 import com.onlinestore.art_supplies.products.Product;
 import com.onlinestore.art_supplies.products.ProductService;
 import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
 import com.onlinestore.art_supplies.users.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
+    public static final int ORDERS_PER_PAGE = 10;
+    public static final int MAX_ORDERS_PER_PAGE = 50;
+    private static final Sort HISTORY_SORT = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("orderId"));
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final UserService userService;
+    private final UserRepository userRepository;
     private final CartService cartService;
     private final ProductService productService;
+    private final InventoryLedger inventoryLedger;
+    private final CheckoutIdempotency checkoutIdempotency;
+    private final Outbox outbox;
+    private final PurchaseHistory purchaseHistory;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public Order placeOrder(HttpServletRequest request) {
-        User user = userService.getAuthenticatedUser(request);
-        if (user == null) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not logged in");
+        return createOrder(getLoggedInUser(request));
+    }
+
+    /**
+     * Places the order at most once per idempotency key: a retried or double-submitted checkout gets the order the
+     * first one created and leaves stock and the cart alone. Without a key this is a plain {@link #placeOrder}.
+     */
+    public Order placeOrder(HttpServletRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return transactionTemplate.execute(status -> placeOrder(request));
         }
+        User user = getLoggedInUser(request);
+        return checkoutIdempotency.execute(user.getUserId(), idempotencyKey, () -> transactionTemplate.execute(status -> {
+            Order order = createOrder(user);
+            checkoutIdempotency.record(user.getUserId(), idempotencyKey, order);
+            return order;
+        }));
+    }
 
+    private Order createOrder(User user) {
         List<CartItem> cartItems = cartService.getCartItems(user);
         if (cartItems.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty. Please add items to the cart before placing an order.");
         }
 
         Order order = new Order();
-        order.setUser(user);
+        order.setUser(userRepository.getReferenceById(user.getUserId()));
         order.setOrderDate(LocalDateTime.now());
 
-        List<OrderItem> orderItems = cartItems.stream().map(cartItem -> {
-            Product product = cartItem.getProduct();
-
-            if (product.getQuantity() < cartItem.getQuantity()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "Not enough stock for product: " + product.getProductName());
-            }
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productService.addProduct(product);
+        reserveStock(user, cartItems);
 
+        List<OrderItem> orderItems = cartItems.stream().map(cartItem -> {
             OrderItem orderItem = new OrderItem();
             orderItem.setProduct(cartItem.getProduct());
+            orderItem.setCategoryId(cartItem.getProduct().getCategory() == null
+                    ? null : cartItem.getProduct().getCategory().getCategoryId());
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setPrice(cartItem.getProduct().getPrice());
             orderItem.setOrder(order);
-
-            log.info("CartItem: {} - {}", cartItem.getProduct().getProductName(), cartItem.getQuantity());
-            log.info("OrderItem: {} - {}", orderItem.getProduct().getProductName(), orderItem.getQuantity());
-
             return orderItem;
         }).toList();
 
@@ -70,24 +103,85 @@ public class OrderService {
         order.setTotalAmount(calculateTotalAmount(orderItems));
 
         orderRepository.save(order);
+        outbox.publish(OrderPlacedEvent.TYPE, order.getOrderId(), OrderPlacedEvent.from(order));
+        purchaseHistory.recordPurchase(user.getUserId(),
+                orderItems.stream().map(orderItem -> orderItem.getProduct().getProductId()).toList());
 
         cartService.clearCart(user);
         return order;
     }
 
 
+    private void reserveStock(User user, List<CartItem> cartItems) {
+        Map<Long, Integer> quantities = cartItems.stream()
+                .collect(Collectors.toMap(cartItem -> cartItem.getProduct().getProductId(), CartItem::getQuantity, Integer::sum));
+        try {
+            if (inventoryLedger.isEnabled()) {
+                inventoryLedger.reserve(user.getUserId(), quantities);
+            } else {
+                productService.decrementStock(quantities);
+            }
+        } catch (InsufficientStockException e) {
+            String productNames = cartItems.stream()
+                    .map(CartItem::getProduct)
+                    .filter(product -> e.getProductIds().contains(product.getProductId()))
+                    .map(Product::getProductName)
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            throw new InsufficientStockException(e.getProductIds(), "Not enough stock for product: " + productNames);
+        }
+    }
+
     public BigDecimal calculateTotalAmount(List<OrderItem> items) {
         return items.stream()
                 .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    public List<Order> getOrderHistory(HttpServletRequest request) {
+    /**
+     * One page of the user's orders, newest first. The page is picked in SQL and its orders are loaded with their items,
+     * products and categories in a single query, so the page costs the same however many orders the user has.
+     */
+    @Transactional(readOnly = true)
+    public Page<Order> getOrderHistory(HttpServletRequest request, int page, int size) {
+        User user = getLoggedInUser(request);
+        Pageable pageable = historyPage(page, size);
+        Page<Long> orderIds = orderRepository.findOrderIdsByUserId(user.getUserId(), pageable);
+        List<Order> orders = orderIds.isEmpty()
+                ? List.of()
+                : orderRepository.findWithItemsByOrderIdIn(orderIds.getContent(), HISTORY_SORT);
+        return new PageImpl<>(orders, pageable, orderIds.getTotalElements());
+    }
+
+    /**
+     * Order history page as DTOs: one query for the order headers and one for all of their items.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getOrderHistoryResponses(HttpServletRequest request, int page, int size) {
+        User user = getLoggedInUser(request);
+        Page<OrderResponse> orders = orderRepository.findResponsesByUserId(user.getUserId(), historyPage(page, size));
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, List<OrderItemResponse>> itemsByOrderId = orderItemRepository
+                .findResponsesByOrderIds(orders.map(OrderResponse::orderId).getContent()).stream()
+                .collect(Collectors.groupingBy(OrderItemResponse::orderId));
+        return orders.map(order -> order.withItems(itemsByOrderId.getOrDefault(order.orderId(), List.of())));
+    }
+
+    private User getLoggedInUser(HttpServletRequest request) {
         User user = userService.getAuthenticatedUser(request);
-        if (user != null) {
-            return orderRepository.findByUser_UserId(user.getUserId());
-        } else {
+        if (user == null) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not logged in");
         }
+        return user;
+    }
+
+    private static Pageable historyPage(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_ORDERS_PER_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page must be 0 or more and size between 1 and " + MAX_ORDERS_PER_PAGE);
+        }
+        return PageRequest.of(page, size, HISTORY_SORT);
     }
 }
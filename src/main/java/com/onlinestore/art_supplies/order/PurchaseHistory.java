@@ -0,0 +1,106 @@
+package com.onlinestore.art_supplies.order;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onlinestore.art_supplies.order.orderitem.OrderItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Which products each user has bought, for review and rating eligibility. A user's product ids are loaded with one
+ * query on first use, kept as a sorted {@code long[]} in a bounded cache and extended in place when one of their
+ * orders commits, so a check is a binary search.
+ * <p>
+ * Orders placed through another instance are not seen until the entry expires, so writes that depend on a purchase
+ * use {@link #confirmPurchased}, which goes back to the database before saying no.
+ */
+@Component
+public class PurchaseHistory {
+    private final OrderItemRepository orderItemRepository;
+    private final Cache<Long, long[]> purchasedProducts;
+
+    @Autowired
+    public PurchaseHistory(OrderItemRepository orderItemRepository, MeterRegistry meterRegistry,
+                           @Value("${purchases.cache:maximumSize=50000,expireAfterAccess=30m}") String cacheSpec) {
+        this(orderItemRepository, meterRegistry, Caffeine.from(cacheSpec));
+    }
+
+    PurchaseHistory(OrderItemRepository orderItemRepository, MeterRegistry meterRegistry,
+                    Caffeine<Object, Object> cacheBuilder) {
+        this.orderItemRepository = orderItemRepository;
+        this.purchasedProducts = cacheBuilder.recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, purchasedProducts, "purchasedProducts");
+    }
+
+    public boolean hasPurchased(Long userId, Long productId) {
+        if (userId == null || productId == null) {
+            return false;
+        }
+        return Arrays.binarySearch(purchasedProducts.get(userId, this::load), productId) >= 0;
+    }
+
+    /**
+     * Like {@link #hasPurchased} but reloads the user's purchases before answering no.
+     */
+    public boolean confirmPurchased(Long userId, Long productId) {
+        if (hasPurchased(userId, productId)) {
+            return true;
+        }
+        if (userId == null || productId == null) {
+            return false;
+        }
+        purchasedProducts.invalidate(userId);
+        return hasPurchased(userId, productId);
+    }
+
+    /**
+     * Adds the products of a new order to the user's cached set once the current transaction commits. A load running
+     * at the same time finishes first, so the products are never lost.
+     */
+    public void recordPurchase(Long userId, Collection<Long> productIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addPurchases(userId, productIds);
+                }
+            });
+        } else {
+            addPurchases(userId, productIds);
+        }
+    }
+
+    private void addPurchases(Long userId, Collection<Long> productIds) {
+        purchasedProducts.asMap().computeIfPresent(userId, (id, purchased) -> merge(purchased, productIds));
+    }
+
+    private long[] load(Long userId) {
+        return orderItemRepository.findPurchasedProductIds(userId).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+    }
+
+    static long[] merge(long[] purchased, Collection<Long> productIds) {
+        long[] added = productIds.stream()
+                .mapToLong(Long::longValue)
+                .filter(productId -> Arrays.binarySearch(purchased, productId) < 0)
+                .distinct()
+                .toArray();
+        if (added.length == 0) {
+            return purchased;
+        }
+        long[] merged = Arrays.copyOf(purchased, purchased.length + added.length);
+        System.arraycopy(added, 0, merged, purchased.length, added.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+}
@@ -0,0 +1,61 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import com.onlinestore.art_supplies.dto.CartBatchRequest;
+import com.onlinestore.art_supplies.dto.CartResponse;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@Tag(name = "Cart Controller", description = "Operations on the cart of the logged in user")
+@RestController
+@RequestMapping("/order/cart")
+public class CartApiController {
+    private final CartService cartService;
+    private final UserService userService;
+
+    public CartApiController(CartService cartService, UserService userService) {
+        this.cartService = cartService;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get cart",
+            description = "Get the items in the cart with their line totals and the cart total",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cart found"),
+                    @ApiResponse(responseCode = "403", description = "User is not logged in")
+            })
+    public CartResponse getCart(HttpServletRequest request) {
+        return cartService.getCart(getLoggedInUser(request));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Change several cart lines",
+            description = "Apply a list of ADD, UPDATE and REMOVE operations in order, all or nothing, and return the " +
+                    "updated cart. ADD and UPDATE need a quantity of at least 1; UPDATE and REMOVE need the product to " +
+                    "be in the cart.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Operations applied"),
+                    @ApiResponse(responseCode = "400", description = "Invalid operation, item not in cart or not enough stock"),
+                    @ApiResponse(responseCode = "403", description = "User is not logged in"),
+                    @ApiResponse(responseCode = "404", description = "Product not found")
+            })
+    public CartResponse applyOperations(@Valid @RequestBody CartBatchRequest batchRequest, HttpServletRequest request) {
+        return cartService.applyOperations(getLoggedInUser(request), batchRequest.getOperations());
+    }
+
+    private User getLoggedInUser(HttpServletRequest request) {
+        User user = userService.getAuthenticatedUser(request);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not logged in");
+        }
+        return user;
+    }
+}
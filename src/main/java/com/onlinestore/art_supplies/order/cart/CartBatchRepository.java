@@ -0,0 +1,65 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based reads and batched writes of {@code carts}/{@code cart_items} for the {@link CartStore}.
+ */
+@Repository
+class CartBatchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    CartBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The user's cart as product id to quantity, in the order the items were added.
+     */
+    Map<Long, Integer> findItems(Long userId) {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT ci.product_id, ci.quantity FROM cart_items ci " +
+                        "JOIN carts c ON c.cart_id = ci.cart_id WHERE c.user_id = ? ORDER BY ci.id",
+                row -> {
+                    items.put(row.getLong(1), row.getInt(2));
+                },
+                userId);
+        return items;
+    }
+
+    void deleteItems(Long userId) {
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT cart_id FROM carts WHERE user_id = ?)", userId);
+    }
+
+    /**
+     * Replaces the stored contents of the given carts with three batched statements: create missing cart rows, delete
+     * the old items, insert the new ones. Items of products that no longer exist are skipped instead of failing the
+     * whole batch.
+     */
+    void replaceItems(Map<Long, Map<Long, Integer>> itemsByUserId) {
+        if (itemsByUserId.isEmpty()) {
+            return;
+        }
+        List<Object[]> users = new ArrayList<>(itemsByUserId.size());
+        List<Object[]> items = new ArrayList<>();
+        itemsByUserId.forEach((userId, quantities) -> {
+            users.add(new Object[]{userId, userId});
+            quantities.forEach((productId, quantity) -> items.add(new Object[]{productId, quantity, userId, productId}));
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO carts (user_id) SELECT u.user_id FROM users u WHERE u.user_id = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM carts c WHERE c.user_id = ?)", users);
+        jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE cart_id IN (SELECT cart_id FROM carts WHERE user_id = ?)",
+                users.stream().map(user -> new Object[]{user[0]}).toList());
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO cart_items (cart_id, product_id, quantity) " +
+                    "SELECT c.cart_id, ?, ? FROM carts c WHERE c.user_id = ? " +
+                    "AND EXISTS (SELECT 1 FROM products p WHERE p.product_id = ?)", items);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import com.onlinestore.art_supplies.config.security.JwtUtils;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Anonymous carts kept by the browser. The cookie holds {@code productId:quantity} pairs joined by {@code _}, then a
+ * dot and an HMAC of the pairs under the JWT key, so the server stores nothing for visitors and can trust what comes
+ * back. A missing, malformed or tampered cookie reads as an empty cart.
+ */
+@Slf4j
+@Component
+class CartCookie {
+    static final String NAME = "cart";
+    static final int MAX_ITEMS = 50;
+    private static final int MAX_AGE = 60 * 60 * 24 * 30; // 30 days
+    private static final String SIGNATURE_CONTEXT = "cart:";
+
+    private final JwtUtils jwtUtils;
+
+    CartCookie(JwtUtils jwtUtils) {
+        this.jwtUtils = jwtUtils;
+    }
+
+    /**
+     * The cart in the request's cookie as product id to quantity, in the order the items were added.
+     */
+    Map<Long, Integer> read(HttpServletRequest request) {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        String value = request.getCookies() == null ? null : Arrays.stream(request.getCookies())
+                .filter(cookie -> cookie.getName().equals(NAME))
+                .findFirst()
+                .map(Cookie::getValue)
+                .orElse(null);
+        int separator = value == null ? -1 : value.lastIndexOf('.');
+        if (separator < 0) {
+            return items;
+        }
+        String payload = value.substring(0, separator);
+        byte[] signature = value.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(signature, sign(payload).getBytes(StandardCharsets.US_ASCII))) {
+            log.debug("Ignoring cart cookie with a bad signature");
+            return items;
+        }
+        try {
+            for (String item : payload.isEmpty() ? new String[0] : payload.split("_")) {
+                int colon = item.indexOf(':');
+                int quantity = Integer.parseInt(item.substring(colon + 1));
+                if (quantity > 0 && items.size() < MAX_ITEMS) {
+                    items.put(Long.parseLong(item.substring(0, colon)), quantity);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Ignoring malformed cart cookie", e);
+            items.clear();
+        }
+        return items;
+    }
+
+    /**
+     * Stores the cart in the response; an empty cart removes the cookie.
+     */
+    void write(HttpServletResponse response, Map<Long, Integer> items) {
+        if (items.isEmpty()) {
+            clear(response);
+            return;
+        }
+        String payload = items.entrySet().stream()
+                .map(item -> item.getKey() + ":" + item.getValue())
+                .collect(Collectors.joining("_"));
+        response.addCookie(cookie(payload + "." + sign(payload), MAX_AGE));
+    }
+
+    void clear(HttpServletResponse response) {
+        response.addCookie(cookie(null, 0));
+    }
+
+    private String sign(String payload) {
+        return jwtUtils.sign(SIGNATURE_CONTEXT + payload);
+    }
+
+    private static Cookie cookie(String value, int maxAge) {
+        Cookie cookie = new Cookie(NAME, value);
+        cookie.setHttpOnly(true);
+        cookie.setPath("/");
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+}
@@ -1,87 +1,326 @@
 package com.onlinestore.art_supplies.order.cart;
 
+import com.onlinestore.art_supplies.dto.CartItemResponse;
+import com.onlinestore.art_supplies.dto.CartOperation;
+import com.onlinestore.art_supplies.dto.CartResponse;
+import com.onlinestore.art_supplies.products.InsufficientStockException;
+import com.onlinestore.art_supplies.products.InventoryLedger;
 import com.onlinestore.art_supplies.products.Product;
 import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.products.ProductService;
 import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Cart operations on the in-memory {@link CartStore}. Mutations check products against the catalog cache and don't
+ * query the database; reading the cart loads its products in one query so prices are current.
+ * <p>
+ * Visitors who are not logged in get a {@link CartCookie} instead, which is merged into their cart when they log in.
+ */
 @Service
 public class CartService {
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CartCookie cartCookie;
     private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final UserRepository userRepository;
+    private final InventoryLedger inventoryLedger;
 
-    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository) {
-        this.cartRepository = cartRepository;
-        this.cartItemRepository = cartItemRepository;
+    public CartService(CartStore cartStore, CartCookie cartCookie, ProductRepository productRepository,
+                       ProductService productService, UserRepository userRepository, InventoryLedger inventoryLedger) {
+        this.cartStore = cartStore;
+        this.cartCookie = cartCookie;
         this.productRepository = productRepository;
+        this.productService = productService;
+        this.userRepository = userRepository;
+        this.inventoryLedger = inventoryLedger;
     }
 
-    public Cart getOrCreateCartForUser(User user) {
-        return cartRepository.findByUser(user).orElseGet(() -> {
-            Cart cart = new Cart();
-            cart.setUser(user);
-            return cartRepository.save(cart);
+    /**
+     * Adds 1 to {@link CartOperation#MAX_QUANTITY} units to the cart; the line may not exceed that limit either.
+     */
+    public void addProductToCart(User user, Long productId, int quantity) {
+        requireQuantity(productId, quantity, 1);
+        requireProduct(productId);
+        inventoryLedger.load(List.of(productId));
+        cartStore.update(user.getUserId(), items -> {
+            int newQuantity = addQuantity(productId, items.getOrDefault(productId, 0), quantity);
+            inventoryLedger.hold(user.getUserId(), productId, newQuantity);
+            return items.put(productId, newQuantity);
         });
     }
 
-    public void addProductToCart(User user, Long productId, int quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-
-        Cart cart = getOrCreateCartForUser(user);
-
-        Optional<CartItem> optionalCartItem = cartItemRepository.findByCartAndProduct(cart, product);
-        CartItem cartItem;
-
-        if (optionalCartItem.isPresent()) {
-            cartItem = optionalCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        } else {
-            cartItem = new CartItem();
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(quantity);
+    /**
+     * The cart's items with their products, in the order they were added. Products deleted since are left out.
+     */
+    public List<CartItem> getCartItems(User user) {
+        return toCartItems(cartStore.items(user.getUserId()));
+    }
+
+    /**
+     * Sets the quantity of an item in the cart, from 1 to {@link CartOperation#MAX_QUANTITY}; 0 removes it.
+     */
+    public void updateCartItemQuantity(User user, Long productId, int quantity) {
+        requireQuantity(productId, quantity, 0);
+        if (quantity == 0) {
+            removeProductFromCart(user, productId);
+            return;
         }
+        inventoryLedger.load(List.of(productId));
+        cartStore.update(user.getUserId(), items -> {
+            if (!items.containsKey(productId)) {
+                throw new IllegalArgumentException("Item not in cart");
+            }
+            inventoryLedger.hold(user.getUserId(), productId, quantity);
+            return items.put(productId, quantity);
+        });
+    }
 
-        cartItemRepository.save(cartItem);
+    public void removeProductFromCart(User user, Long productId) {
+        cartStore.update(user.getUserId(), items -> {
+            if (items.remove(productId) == null) {
+                throw new IllegalArgumentException("Item not in cart");
+            }
+            return null;
+        });
+        inventoryLedger.release(user.getUserId(), productId);
     }
 
-    public List<CartItem> getCartItems(User user) {
-        Cart cart = getOrCreateCartForUser(user);
-        return cart.getCartItems();
+    public void clearCart(User user) {
+        cartStore.clear(user.getUserId());
+        inventoryLedger.releaseAll(user.getUserId());
     }
 
-    public void updateCartItemQuantity(User user, Long productId, int quantity) {
-        Cart cart = getOrCreateCartForUser(user);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+    @Transactional(readOnly = true)
+    public CartResponse getCart(User user) {
+        Map<Long, Integer> items = cartStore.items(user.getUserId());
+        return toCartResponse(items, findProducts(items.keySet()));
+    }
 
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new IllegalArgumentException("Item not in cart"));
+    /**
+     * Applies the operations in order, all or nothing: the products of the operations and of the cart are read with one
+     * query, the operations are checked and applied to a copy of the cart, the stock holds are moved, and only then is
+     * the cart replaced. Returns the resulting cart with its totals.
+     */
+    @Transactional(readOnly = true)
+    public CartResponse applyOperations(User user, List<CartOperation> operations) {
+        Set<Long> productIds = new HashSet<>(cartStore.items(user.getUserId()).keySet());
+        operations.forEach(operation -> productIds.add(operation.getProductId()));
+        Map<Long, Product> products = findProducts(productIds);
+        inventoryLedger.load(products.keySet());
 
-        item.setQuantity(quantity);
-        cartItemRepository.save(item);
+        Map<Long, Integer> items = cartStore.update(user.getUserId(), current -> {
+            Map<Long, Integer> updated = new LinkedHashMap<>(current);
+            operations.forEach(operation -> applyOperation(updated, operation, products));
+            moveHolds(user.getUserId(), current, updated);
+            current.clear();
+            current.putAll(updated);
+            return updated;
+        });
+        if (!products.keySet().containsAll(items.keySet())) {
+            // the cart changed between reading it and updating it
+            products.putAll(findProducts(items.keySet()));
+        }
+        return toCartResponse(items, products);
     }
 
-    public void removeProductFromCart(User user, Long productId) {
-        Cart cart = getOrCreateCartForUser(user);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+    public List<CartItem> getAnonymousCartItems(HttpServletRequest request) {
+        return toCartItems(cartCookie.read(request));
+    }
+
+    /**
+     * Adds 1 to {@link CartOperation#MAX_QUANTITY} units to the cookie cart; the line is capped at that limit.
+     */
+    public void addProductToAnonymousCart(HttpServletRequest request, HttpServletResponse response, Long productId,
+                                          int quantity) {
+        requireQuantity(productId, quantity, 1);
+        requireProduct(productId);
+        updateAnonymousCart(request, response, items -> {
+            if (!items.containsKey(productId) && items.size() >= CartCookie.MAX_ITEMS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Log in to add more than " + CartCookie.MAX_ITEMS + " different products to the cart");
+            }
+            items.merge(productId, quantity, CartService::cappedSum);
+        });
+    }
 
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new IllegalArgumentException("Item not in cart"));
+    /**
+     * Sets the quantity of an item in the cookie cart, from 1 to {@link CartOperation#MAX_QUANTITY}; 0 removes it.
+     */
+    public void updateAnonymousCartItemQuantity(HttpServletRequest request, HttpServletResponse response, Long productId,
+                                                int quantity) {
+        requireQuantity(productId, quantity, 0);
+        updateAnonymousCart(request, response, items -> {
+            if (!items.containsKey(productId)) {
+                throw new IllegalArgumentException("Item not in cart");
+            }
+            items.put(productId, quantity);
+        });
+    }
 
-        cartItemRepository.delete(item);
+    public void removeProductFromAnonymousCart(HttpServletRequest request, HttpServletResponse response, Long productId) {
+        updateAnonymousCart(request, response, items -> items.remove(productId));
     }
 
-    public void clearCart(User user) {
-        Cart cart = getOrCreateCartForUser(user);
-        cartItemRepository.deleteAll(cart.getCartItems());
-        cart.getCartItems().clear();
-        cartRepository.save(cart);
+    public void clearAnonymousCart(HttpServletResponse response) {
+        cartCookie.clear(response);
+    }
+
+    /**
+     * Adds the items of the visitor's cookie cart to the user's cart and drops the cookie. Lines are capped at
+     * {@link CartOperation#MAX_QUANTITY}. Holds that can't be taken for lack of stock are skipped; checkout checks stock
+     * again.
+     */
+    public void mergeAnonymousCart(String username, HttpServletRequest request, HttpServletResponse response) {
+        Map<Long, Integer> anonymousItems = cartCookie.read(request);
+        if (anonymousItems.isEmpty()) {
+            return;
+        }
+        inventoryLedger.load(anonymousItems.keySet());
+        userRepository.findByUsername(username).ifPresent(user -> cartStore.update(user.getUserId(), items -> {
+            anonymousItems.forEach((productId, quantity) -> {
+                int newQuantity = cappedSum(items.getOrDefault(productId, 0), quantity);
+                try {
+                    inventoryLedger.hold(user.getUserId(), productId, newQuantity);
+                } catch (InsufficientStockException e) {
+                    // keep the item, checkout reports it as out of stock
+                }
+                items.put(productId, newQuantity);
+            });
+            return null;
+        }));
+        cartCookie.clear(response);
+    }
+
+    private void updateAnonymousCart(HttpServletRequest request, HttpServletResponse response,
+                                     Consumer<Map<Long, Integer>> mutation) {
+        Map<Long, Integer> items = new LinkedHashMap<>(cartCookie.read(request));
+        mutation.accept(items);
+        items.values().removeIf(quantity -> quantity <= 0);
+        cartCookie.write(response, items);
+    }
+
+    private static void applyOperation(Map<Long, Integer> items, CartOperation operation, Map<Long, Product> products) {
+        Long productId = operation.getProductId();
+        if (operation.getAction() != CartOperation.Action.REMOVE) {
+            if (!products.containsKey(productId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + productId);
+            }
+            if (operation.getQuantity() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity is required for " + operation.getAction());
+            }
+        }
+        if (operation.getAction() != CartOperation.Action.ADD && !items.containsKey(productId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item not in cart: " + productId);
+        }
+        switch (operation.getAction()) {
+            case ADD -> items.put(productId, addQuantity(productId, items.getOrDefault(productId, 0), operation.getQuantity()));
+            case UPDATE -> items.put(productId, operation.getQuantity());
+            case REMOVE -> items.remove(productId);
+        }
+    }
+
+    /**
+     * Sets the user's stock holds to the new quantities. If one can't be taken, the holds already moved are put back
+     * before the exception is rethrown.
+     */
+    private void moveHolds(Long userId, Map<Long, Integer> before, Map<Long, Integer> after) {
+        Set<Long> productIds = new LinkedHashSet<>(before.keySet());
+        productIds.addAll(after.keySet());
+        List<Long> moved = new ArrayList<>();
+        try {
+            for (Long productId : productIds) {
+                if (!Objects.equals(before.get(productId), after.get(productId))) {
+                    inventoryLedger.hold(userId, productId, after.getOrDefault(productId, 0));
+                    moved.add(productId);
+                }
+            }
+        } catch (InsufficientStockException e) {
+            moved.forEach(productId -> {
+                try {
+                    inventoryLedger.hold(userId, productId, before.getOrDefault(productId, 0));
+                } catch (InsufficientStockException ignored) {
+                    // the stock went to another cart meanwhile; checkout checks again
+                }
+            });
+            throw e;
+        }
+    }
+
+    private static void requireQuantity(Long productId, int quantity, int min) {
+        if (quantity < min || quantity > CartOperation.MAX_QUANTITY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid quantity for product with id " + productId);
+        }
+    }
+
+    /**
+     * The line's quantity after adding {@code quantity} units, summed without overflow.
+     *
+     * @throws ResponseStatusException 400 if the line would exceed {@link CartOperation#MAX_QUANTITY}
+     */
+    private static int addQuantity(Long productId, int current, int quantity) {
+        long newQuantity = (long) current + quantity;
+        if (newQuantity > CartOperation.MAX_QUANTITY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + CartOperation.MAX_QUANTITY + " units of product " + productId + " fit in the cart");
+        }
+        return (int) newQuantity;
+    }
+
+    private static int cappedSum(int current, int quantity) {
+        return (int) Math.min((long) current + quantity, CartOperation.MAX_QUANTITY);
+    }
+
+    private void requireProduct(Long productId) {
+        if (productService.getProductById(productId) == null) {
+            throw new IllegalArgumentException("Product not found");
+        }
+    }
+
+    private List<CartItem> toCartItems(Map<Long, Integer> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = findProducts(items.keySet());
+        return items.entrySet().stream()
+                .filter(item -> products.containsKey(item.getKey()))
+                .map(item -> {
+                    CartItem cartItem = new CartItem();
+                    cartItem.setProduct(products.get(item.getKey()));
+                    cartItem.setQuantity(item.getValue());
+                    return cartItem;
+                })
+                .toList();
+    }
+
+    private static CartResponse toCartResponse(Map<Long, Integer> items, Map<Long, Product> products) {
+        return CartResponse.of(items.entrySet().stream()
+                .filter(item -> products.containsKey(item.getKey()))
+                .map(item -> {
+                    Product product = products.get(item.getKey());
+                    return new CartItemResponse(product.getProductId(), product.getProductName(), product.getPrice(),
+                            item.getValue(), product.getPrice().multiply(BigDecimal.valueOf(item.getValue())));
+                })
+                .toList());
+    }
+
+    private Map<Long, Product> findProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
     }
 }
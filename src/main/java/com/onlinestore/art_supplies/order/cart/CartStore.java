@@ -0,0 +1,291 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Carts held in memory, keyed by user id, so adding, updating and removing items doesn't touch the database.
+ * <p>
+ * A user's cart is read from {@code cart_items} the first time it is used. Changed carts are marked dirty and written
+ * back every {@code cart.store.flush-interval} and on shutdown; however often a cart changed in between, it costs one
+ * row set in the next batch. A crash loses at most one interval of cart edits. Carts that are clean and have not been
+ * used for {@code cart.store.idle-timeout} are dropped and read again on the next use.
+ * <p>
+ * Carts are spread over shards, each guarded by its own lock, so users only contend when they share a shard.
+ * Every instance must see all of a user's cart requests (sticky sessions) for its copy to stay authoritative.
+ */
+@Slf4j
+@Component
+public class CartStore {
+    private static final int SHARDS = 32;
+
+    private final CartBatchRepository cartBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration flushInterval;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CartStore(CartBatchRepository cartBatchRepository, PlatformTransactionManager transactionManager,
+                     @Value("${cart.store.flush-interval:1s}") Duration flushInterval,
+                     @Value("${cart.store.idle-timeout:30m}") Duration idleTimeout) {
+        this(cartBatchRepository, new TransactionTemplate(transactionManager), flushInterval, idleTimeout, System::nanoTime);
+    }
+
+    CartStore(CartBatchRepository cartBatchRepository, TransactionTemplate transactionTemplate, Duration flushInterval,
+              Duration idleTimeout, LongSupplier clock) {
+        this.cartBatchRepository = cartBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushInterval = flushInterval;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = Math.max(1, flushInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to write back {} carts on shutdown", dirtyCount(), e);
+        }
+    }
+
+    /**
+     * A copy of the user's cart as product id to quantity, in the order the items were added.
+     */
+    public Map<Long, Integer> items(Long userId) {
+        Shard shard = shard(userId);
+        CartEntry entry = lockEntry(shard, userId);
+        try {
+            entry.lastUsed = clock.getAsLong();
+            return Collections.unmodifiableMap(new LinkedHashMap<>(entry.items));
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies {@code mutation} to the user's cart under its shard lock and schedules the cart for write-back. If the
+     * mutation throws, it must not have changed the items, and the cart is left as it was.
+     */
+    public <T> T update(Long userId, Function<Map<Long, Integer>, T> mutation) {
+        Shard shard = shard(userId);
+        CartEntry entry = lockEntry(shard, userId);
+        try {
+            T result = mutation.apply(entry.items);
+            entry.changed(clock.getAsLong());
+            shard.dirty.add(userId);
+            return result;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the user's cart. Inside a transaction (checkout) the stored items are deleted in that transaction too,
+     * so a committed order never leaves its items behind in the cart, and the cart comes back if it rolls back. The
+     * delete waits for a running flush, so a snapshot taken before the clear can't be written back after it.
+     */
+    public void clear(Long userId) {
+        Shard shard = shard(userId);
+        CartEntry entry = lockEntry(shard, userId);
+        Map<Long, Integer> removed;
+        long clearedVersion;
+        try {
+            removed = new LinkedHashMap<>(entry.items);
+            entry.items.clear();
+            clearedVersion = entry.changed(clock.getAsLong());
+            shard.dirty.add(userId);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            cartBatchRepository.deleteItems(userId);
+        } finally {
+            flushLock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && !removed.isEmpty()) {
+                    restore(userId, removed, clearedVersion);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes every dirty cart in one transaction of batched statements.
+     *
+     * @return the number of carts written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            long now = clock.getAsLong();
+            Map<Long, Map<Long, Integer>> snapshots = new HashMap<>();
+            for (Shard shard : shards) {
+                shard.lock.lock();
+                try {
+                    shard.carts.entrySet().removeIf(cart -> !shard.dirty.contains(cart.getKey())
+                            && now - cart.getValue().lastUsed > idleTimeoutNanos);
+                    shard.dirty.forEach(userId -> snapshots.put(userId, new LinkedHashMap<>(shard.carts.get(userId).items)));
+                    shard.dirty.clear();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            if (snapshots.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> cartBatchRepository.replaceItems(snapshots));
+            } catch (RuntimeException e) {
+                snapshots.keySet().forEach(this::markDirty);
+                throw e;
+            }
+            log.debug("Wrote back {} carts", snapshots.size());
+            return snapshots.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int dirtyCount() {
+        int dirty = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                dirty += shard.dirty.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Locks the user's shard and returns their cart, reading it from the database first (outside the lock) if it isn't
+     * loaded. If another thread loaded it in the meantime, that copy wins. The caller unlocks the shard.
+     */
+    private CartEntry lockEntry(Shard shard, Long userId) {
+        shard.lock.lock();
+        CartEntry entry = shard.carts.get(userId);
+        if (entry != null) {
+            return entry;
+        }
+        shard.lock.unlock();
+        Map<Long, Integer> items = cartBatchRepository.findItems(userId);
+        shard.lock.lock();
+        return shard.carts.computeIfAbsent(userId, id -> new CartEntry(items, clock.getAsLong()));
+    }
+
+    /**
+     * Puts back the items of a cleared cart, unless the cart was changed again after it was cleared.
+     */
+    private void restore(Long userId, Map<Long, Integer> items, long clearedVersion) {
+        Shard shard = shard(userId);
+        shard.lock.lock();
+        try {
+            CartEntry entry = shard.carts.get(userId);
+            if (entry != null && entry.version == clearedVersion) {
+                entry.items.putAll(items);
+                entry.changed(clock.getAsLong());
+                shard.dirty.add(userId);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void markDirty(Long userId) {
+        Shard shard = shard(userId);
+        shard.lock.lock();
+        try {
+            if (shard.carts.containsKey(userId)) {
+                shard.dirty.add(userId);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private Shard shard(Long userId) {
+        return shards[Math.floorMod(Long.hashCode(userId), SHARDS)];
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Cart write-behind failed, will retry", e);
+        }
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, CartEntry> carts = new HashMap<>();
+        private final Set<Long> dirty = new HashSet<>();
+    }
+
+    private static final class CartEntry {
+        private final Map<Long, Integer> items;
+        private long version;
+        private long lastUsed;
+
+        private CartEntry(Map<Long, Integer> items, long lastUsed) {
+            this.items = new LinkedHashMap<>(items);
+            this.lastUsed = lastUsed;
+        }
+
+        private long changed(long now) {
+            lastUsed = now;
+            return ++version;
+        }
+    }
+}
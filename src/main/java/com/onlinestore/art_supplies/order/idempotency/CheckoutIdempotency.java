@@ -0,0 +1,124 @@
+package com.onlinestore.art_supplies.order.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onlinestore.art_supplies.order.Order;
+import com.onlinestore.art_supplies.order.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a checkout at most once per (user, idempotency key). Keys are recorded in the checkout_keys table together
+ * with the order; a short-lived in-memory map of in-flight and recent checkouts sits in front of it, so a retry is
+ * answered without a query and concurrent duplicates wait for the first execution instead of running their own.
+ */
+@Slf4j
+@Component
+public class CheckoutIdempotency {
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final CheckoutKeyRepository checkoutKeyRepository;
+    private final OrderRepository orderRepository;
+    private final Duration retention;
+    private final Cache<CheckoutKey.Id, CompletableFuture<Long>> recent;
+
+    public CheckoutIdempotency(CheckoutKeyRepository checkoutKeyRepository, OrderRepository orderRepository,
+                               @Value("${checkout.idempotency.cache:maximumSize=10000,expireAfterWrite=10m}") String cacheSpec,
+                               @Value("${checkout.idempotency.retention:24h}") Duration retention) {
+        this.checkoutKeyRepository = checkoutKeyRepository;
+        this.orderRepository = orderRepository;
+        this.retention = retention;
+        this.recent = Caffeine.from(cacheSpec).build();
+    }
+
+    /**
+     * Returns the order previously placed with this key, or runs {@code checkout} to place it. The checkout has to
+     * call {@link #record} inside its transaction. A failed checkout is not remembered, so it can be retried with the
+     * same key, but duplicates that were waiting on it get the same error.
+     */
+    public Order execute(Long userId, String idempotencyKey, Supplier<Order> checkout) {
+        CheckoutKey.Id id = new CheckoutKey.Id(userId, validate(idempotencyKey));
+        CompletableFuture<Long> execution = new CompletableFuture<>();
+        CompletableFuture<Long> existing = recent.asMap().putIfAbsent(id, execution);
+        if (existing != null) {
+            log.info("Duplicate checkout for user {} with key {}", userId, idempotencyKey);
+            return findOrder(await(existing));
+        }
+        try {
+            Long storedOrderId = checkoutKeyRepository.findOrderId(userId, id.getIdempotencyKey()).orElse(null);
+            if (storedOrderId != null) {
+                execution.complete(storedOrderId);
+                return findOrder(storedOrderId);
+            }
+            Order order = checkout.get();
+            execution.complete(order.getOrderId());
+            return order;
+        } catch (DataIntegrityViolationException e) {
+            // another instance committed the same key first; its order stands and ours was rolled back
+            Long storedOrderId = checkoutKeyRepository.findOrderId(userId, id.getIdempotencyKey())
+                    .orElseThrow(() -> fail(id, execution, e));
+            execution.complete(storedOrderId);
+            return findOrder(storedOrderId);
+        } catch (RuntimeException e) {
+            throw fail(id, execution, e);
+        }
+    }
+
+    /**
+     * Records the key for a newly placed order. Must run in the transaction that saved the order.
+     */
+    public void record(Long userId, String idempotencyKey, Order order) {
+        checkoutKeyRepository.insert(userId, idempotencyKey.strip(), order.getOrderId(), LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "${checkout.idempotency.purge-cron:0 0 * * * *}")
+    @Transactional
+    public int purgeExpired() {
+        int purged = checkoutKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        log.info("Purged {} expired checkout keys", purged);
+        return purged;
+    }
+
+    private static String validate(String idempotencyKey) {
+        String key = idempotencyKey.strip();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        return key;
+    }
+
+    private Order findOrder(Long orderId) {
+        return orderRepository.findWithItemsByOrderId(orderId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+    }
+
+    private RuntimeException fail(CheckoutKey.Id id, CompletableFuture<Long> execution, RuntimeException e) {
+        recent.asMap().remove(id, execution);
+        execution.completeExceptionally(e);
+        return e;
+    }
+
+    private static Long await(CompletableFuture<Long> execution) {
+        try {
+            return execution.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.onlinestore.art_supplies.order.idempotency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * The order a user's checkout idempotency key produced. Written in the same transaction as the order, so a key is
+ * only ever recorded for an order that exists.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "checkout_keys")
+@IdClass(CheckoutKey.Id.class)
+public class CheckoutKey {
+    @jakarta.persistence.Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @jakarta.persistence.Id
+    @Column(name = "idempotency_key", length = CheckoutIdempotency.MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Id implements Serializable {
+        private Long userId;
+        private String idempotencyKey;
+    }
+}
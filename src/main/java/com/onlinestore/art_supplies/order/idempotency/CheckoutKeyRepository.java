@@ -0,0 +1,30 @@
+package com.onlinestore.art_supplies.order.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutKeyRepository extends JpaRepository<CheckoutKey, CheckoutKey.Id> {
+    @Query("SELECT k.orderId FROM CheckoutKey k WHERE k.userId = :userId AND k.idempotencyKey = :idempotencyKey")
+    Optional<Long> findOrderId(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey);
+
+    /**
+     * Plain INSERT rather than {@code save}: with an assigned id, save would merge into a row another request just
+     * committed instead of failing on the primary key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO checkout_keys (user_id, idempotency_key, order_id, created_at) " +
+            "VALUES (:userId, :idempotencyKey, :orderId, :createdAt)", nativeQuery = true)
+    void insert(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+                @Param("orderId") Long orderId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM CheckoutKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
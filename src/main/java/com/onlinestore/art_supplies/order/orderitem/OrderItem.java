@@ -30,6 +30,12 @@ public class OrderItem {
     @JoinColumn(name = "product_id", referencedColumnName = "product_id")
     private Product product;
 
+    /**
+     * The product's category when the order was placed; sales reports count the item under it.
+     */
+    @Column(name = "category_id")
+    private Long categoryId;
+
     @Min(value = 0, message = "Quantity cannot be less than 0")
     private Integer quantity;
 
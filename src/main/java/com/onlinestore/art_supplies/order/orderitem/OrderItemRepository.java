@@ -1,12 +1,24 @@
 package com.onlinestore.art_supplies.order.orderitem;
 
+import com.onlinestore.art_supplies.dto.OrderItemResponse;
 import com.onlinestore.art_supplies.order.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
+
+    @Query("SELECT new com.onlinestore.art_supplies.dto.OrderItemResponse(oi.order.orderId, p.productId, " +
+            "p.productName, oi.quantity, oi.price) FROM OrderItem oi JOIN oi.product p " +
+            "WHERE oi.order.orderId IN :orderIds ORDER BY oi.id")
+    List<OrderItemResponse> findResponsesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT DISTINCT oi.product.productId FROM OrderItem oi WHERE oi.order.user.userId = :userId")
+    List<Long> findPurchasedProductIds(@Param("userId") Long userId);
 }
@@ -0,0 +1,9 @@
+package com.onlinestore.art_supplies.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of events still waiting to be dispatched and the creation time of the oldest one ({@code null} when none).
+ */
+public record OutboxBacklog(long pending, LocalDateTime oldestCreatedAt) {
+}
@@ -0,0 +1,216 @@
+package com.onlinestore.art_supplies.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox in the background: due events are read in id order, one batch per run, and each event is handed
+ * to its handlers in its own transaction. A failed event is retried with exponential backoff and parked as DEAD after
+ * {@code outbox.dispatcher.max-attempts}. Only one instance should run the dispatcher
+ * ({@code outbox.dispatcher.enabled}), otherwise events may be handled twice.
+ * <p>
+ * Publishes {@code outbox.events} (by outcome), {@code outbox.lag} (commit to handled), {@code outbox.pending} and
+ * {@code outbox.oldest.age}.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<OutboxHandler<?>> handlers;
+    private Map<String, List<OutboxHandler<?>>> handlersByType;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+
+    private final Counter processed;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer lag;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+    private final ReentrantLock dispatching = new ReentrantLock();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager, ObjectProvider<OutboxHandler<?>> handlers,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.dispatcher.enabled:true}") boolean enabled,
+                            @Value("${outbox.dispatcher.batch-size:100}") int batchSize,
+                            @Value("${outbox.dispatcher.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.dispatcher.backoff:1s}") Duration backoff,
+                            @Value("${outbox.dispatcher.max-backoff:5m}") Duration maxBackoff,
+                            @Value("${outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.handlers = handlers;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+
+        this.processed = outcomeCounter(meterRegistry, "processed");
+        this.retried = outcomeCounter(meterRegistry, "retried");
+        this.dead = outcomeCounter(meterRegistry, "dead");
+        this.lag = Timer.builder("outbox.lag")
+                .description("Time from an outbox event being written to being handled")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Outbox events waiting to be dispatched")
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.age", oldestAgeMillis, value -> value.get() / 1000.0)
+                .description("Age in seconds of the oldest outbox event waiting to be dispatched")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.interval-ms:500}")
+    public void dispatchScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.warn("Outbox dispatch failed", e);
+        }
+    }
+
+    /**
+     * Dispatches one batch of due events and returns how many were taken. Runs one batch at a time.
+     */
+    public int dispatch() {
+        dispatching.lock();
+        try {
+            if (handlersByType == null) {
+                // resolved on first use: handlers may themselves depend on the dispatcher
+                handlersByType = handlers.orderedStream().collect(Collectors.groupingBy(OutboxHandler::eventType));
+            }
+            List<OutboxEvent> batch = outboxEventRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            batch.forEach(this::dispatch);
+            refreshBacklog();
+            return batch.size();
+        } finally {
+            dispatching.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code action} while no batch is being dispatched, e.g. to rebuild state that handlers keep up to date.
+     */
+    public <T> T runExclusive(Supplier<T> action) {
+        dispatching.lock();
+        try {
+            return action.get();
+        } finally {
+            dispatching.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${outbox.purge-cron:0 15 * * * *}")
+    public int purgeProcessed() {
+        Integer purged = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+        log.info("Purged {} processed outbox events", purged);
+        return purged == null ? 0 : purged;
+    }
+
+    private void dispatch(OutboxEvent event) {
+        List<OutboxHandler<?>> eventHandlers = handlersByType.getOrDefault(event.getEventType(), List.of());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OutboxHandler<?> handler : eventHandlers) {
+                    handle(handler, event);
+                }
+                outboxEventRepository.markProcessed(event.getId(), LocalDateTime.now());
+            });
+            processed.increment();
+            lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            recordFailure(event, e);
+        }
+    }
+
+    private <T> void handle(OutboxHandler<T> handler, OutboxEvent event) {
+        T payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), handler.payloadType());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read " + event.getEventType() + " event " + event.getId(), e);
+        }
+        handler.handle(payload);
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > OutboxEvent.MAX_ERROR_LENGTH) {
+            error = error.substring(0, OutboxEvent.MAX_ERROR_LENGTH);
+        }
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on {} event {} after {} attempts", event.getEventType(), event.getId(), attempts, e);
+            markFailed(event, OutboxEvent.Status.DEAD, attempts, event.getNextAttemptAt(), error);
+            dead.increment();
+        } else {
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+            log.warn("Handling {} event {} failed (attempt {}), retrying at {}: {}",
+                    event.getEventType(), event.getId(), attempts, nextAttemptAt, error);
+            markFailed(event, OutboxEvent.Status.PENDING, attempts, nextAttemptAt, error);
+            retried.increment();
+        }
+    }
+
+    private void markFailed(OutboxEvent event, OutboxEvent.Status status, int attempts, LocalDateTime nextAttemptAt,
+                            String error) {
+        transactionTemplate.executeWithoutResult(tx ->
+                outboxEventRepository.markFailed(event.getId(), status, attempts, nextAttemptAt, error));
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void refreshBacklog() {
+        OutboxBacklog backlog = outboxEventRepository.findBacklog();
+        pending.set(backlog.pending());
+        oldestAgeMillis.set(backlog.oldestCreatedAt() == null
+                ? 0
+                : Math.max(0, Duration.between(backlog.oldestCreatedAt(), LocalDateTime.now()).toMillis()));
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("outbox.events")
+                .description("Outbox events dispatched, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
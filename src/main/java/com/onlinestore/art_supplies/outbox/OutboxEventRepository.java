@@ -0,0 +1,38 @@
+package com.onlinestore.art_supplies.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = com.onlinestore.art_supplies.outbox.OutboxEvent.Status.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OutboxEvent> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT new com.onlinestore.art_supplies.outbox.OutboxBacklog(COUNT(e), MIN(e.createdAt)) FROM OutboxEvent e " +
+            "WHERE e.status = com.onlinestore.art_supplies.outbox.OutboxEvent.Status.PENDING")
+    OutboxBacklog findBacklog();
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.onlinestore.art_supplies.outbox.OutboxEvent.Status.PROCESSED, " +
+            "e.processedAt = :processedAt WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+            "e.lastError = :lastError WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") OutboxEvent.Status status, @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.onlinestore.art_supplies.outbox.OutboxEvent.Status.PROCESSED " +
+            "AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,14 @@
+package com.onlinestore.art_supplies.outbox;
+
+/**
+ * Reacts to one type of outbox event. Implementations are picked up as Spring beans. Delivery is at least once, since
+ * a failed event is retried with every handler of its type, so handlers have to tolerate seeing an event again.
+ */
+public interface OutboxHandler<T> {
+
+    String eventType();
+
+    Class<T> payloadType();
+
+    void handle(T payload);
+}
@@ -0,0 +1,19 @@
+package com.onlinestore.art_supplies.products;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+public class InsufficientStockException extends ResponseStatusException {
+    private final List<Long> productIds;
+
+    public InsufficientStockException(List<Long> productIds, String reason) {
+        super(HttpStatus.BAD_REQUEST, reason);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
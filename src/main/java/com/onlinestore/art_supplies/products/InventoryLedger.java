@@ -0,0 +1,504 @@
+package com.onlinestore.art_supplies.products;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process view of product stock, so cart and checkout availability checks don't go to the database.
+ * <p>
+ * For every product it tracks the quantity last read from {@code products}, the units held by carts, the units
+ * reserved by checkouts that have not committed yet and the units sold but not yet written back. Carts hold stock for
+ * {@code inventory.ledger.hold-ttl}; expired holds are released by a {@link TimerWheel}. Committed sales are
+ * subtracted from {@code products} in batches every {@code inventory.ledger.flush-interval} and on shutdown, so a
+ * crash can lose at most one interval of stock decrements.
+ * <p>
+ * Products are guarded by striped locks; multi-product operations take their stripes in ascending order.
+ * Disabled by default ({@code inventory.ledger.enabled}), in which case every method is a no-op and checkout uses
+ * {@link ProductService#decrementStock}.
+ */
+@Slf4j
+@Component
+public class InventoryLedger {
+    private static final int STRIPES = 64;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long holdTtlNanos;
+    private final Duration flushInterval;
+    private final LongSupplier clock;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Map<Long, StockEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong refreshVersion = new AtomicLong();
+    private final Map<Long, Map<Long, Hold>> holdsByUser = new ConcurrentHashMap<>();
+    private final TimerWheel<HoldKey> expirations;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public InventoryLedger(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                           @Value("${inventory.ledger.enabled:false}") boolean enabled,
+                           @Value("${inventory.ledger.hold-ttl:15m}") Duration holdTtl,
+                           @Value("${inventory.ledger.tick:1s}") Duration tick,
+                           @Value("${inventory.ledger.flush-interval:250ms}") Duration flushInterval) {
+        this(productRepository, eventPublisher, enabled, holdTtl, tick, flushInterval, System::nanoTime);
+    }
+
+    InventoryLedger(ProductRepository productRepository, ApplicationEventPublisher eventPublisher, boolean enabled,
+                    Duration holdTtl, Duration tick, Duration flushInterval, LongSupplier clock) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.holdTtlNanos = holdTtl.toNanos();
+        this.flushInterval = flushInterval;
+        this.clock = clock;
+        this.expirations = new TimerWheel<>(512, tick.toNanos(), clock.getAsLong());
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = Math.max(1, flushInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::expireHoldsQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        log.info("Inventory ledger enabled: hold TTL {}s, write-behind every {}ms", holdTtlNanos / 1_000_000_000, flushMillis);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Units that can still be put in a cart or sold.
+     */
+    public int available(Long productId) {
+        load(List.of(productId));
+        ReentrantLock lock = stripe(productId);
+        lock.lock();
+        try {
+            StockEntry entry = entry(productId);
+            return entry == null ? 0 : entry.available();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the user's hold on a product to {@code quantity} units and restarts its TTL.
+     *
+     * @throws InsufficientStockException if the other carts and sales leave less than {@code quantity} units
+     */
+    public void hold(Long userId, Long productId, int quantity) {
+        if (!enabled) {
+            return;
+        }
+        if (quantity <= 0) {
+            release(userId, productId);
+            return;
+        }
+        load(List.of(productId));
+        ReentrantLock lock = stripe(productId);
+        long expiresAt = clock.getAsLong() + holdTtlNanos;
+        lock.lock();
+        try {
+            StockEntry entry = entry(productId);
+            Hold hold = holdsByUser.getOrDefault(userId, Map.of()).get(productId);
+            int currentlyHeld = hold == null ? 0 : hold.quantity;
+            if (entry == null || entry.available() + currentlyHeld < quantity) {
+                throw new InsufficientStockException(List.of(productId), "Not enough stock for product with id " + productId);
+            }
+            entry.held += quantity - currentlyHeld;
+            if (hold == null) {
+                putHold(userId, productId, new Hold(quantity, expiresAt));
+            } else {
+                hold.quantity = quantity;
+                hold.expiresAt = expiresAt;
+            }
+        } finally {
+            lock.unlock();
+        }
+        expirations.schedule(new HoldKey(userId, productId), expiresAt);
+    }
+
+    public void release(Long userId, Long productId) {
+        if (!enabled) {
+            return;
+        }
+        ReentrantLock lock = stripe(productId);
+        lock.lock();
+        try {
+            releaseHold(userId, productId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releaseAll(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Hold> userHolds = holdsByUser.get(userId);
+        if (userHolds != null) {
+            new TreeSet<>(userHolds.keySet()).forEach(productId -> release(userId, productId));
+        }
+    }
+
+    /**
+     * Converts the user's holds into a reservation of the given quantities (all or nothing). The units are sold once
+     * the surrounding transaction commits and handed back, together with the holds, if it rolls back.
+     *
+     * @throws InsufficientStockException listing every product that cannot cover its quantity
+     * @throws ResponseStatusException (400) if a quantity is not positive
+     */
+    public void reserve(Long userId, Map<Long, Integer> quantitiesByProductId) {
+        if (!enabled || quantitiesByProductId.isEmpty()) {
+            return;
+        }
+        SortedMap<Long, Integer> quantities = new TreeMap<>(quantitiesByProductId);
+        quantities.forEach((productId, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid quantity for product with id " + productId);
+            }
+        });
+        Map<Long, Integer> consumedHolds = new HashMap<>();
+        load(quantities.keySet());
+        List<ReentrantLock> locks = lockAll(quantities.keySet());
+        try {
+            Map<Long, Hold> userHolds = holdsByUser.getOrDefault(userId, Map.of());
+            List<Long> shortProductIds = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                StockEntry entry = entry(productId);
+                Hold hold = userHolds.get(productId);
+                int held = hold == null ? 0 : hold.quantity;
+                if (entry == null || entry.available() + held < quantity) {
+                    shortProductIds.add(productId);
+                }
+            });
+            if (!shortProductIds.isEmpty()) {
+                throw new InsufficientStockException(shortProductIds, "Not enough stock for products " + shortProductIds);
+            }
+            quantities.forEach((productId, quantity) -> {
+                consumedHolds.put(productId, releaseHold(userId, productId));
+                entries.get(productId).reserved += quantity;
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    completeReservation(userId, quantities, consumedHolds, status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            completeReservation(userId, quantities, consumedHolds, true);
+        }
+    }
+
+    /**
+     * Loads the quantities of products the ledger doesn't track yet. The query runs without any ledger lock held;
+     * callers that hold locks of their own, like the cart store, should call this before taking them so the query
+     * stays outside those too. Products that don't exist are skipped.
+     */
+    public void load(Collection<Long> productIds) {
+        if (!enabled) {
+            return;
+        }
+        for (Long productId : productIds) {
+            while (!entries.containsKey(productId)) {
+                long version = refreshVersion.get();
+                Optional<Integer> quantity = productRepository.findQuantityByProductId(productId);
+                if (quantity.isEmpty()) {
+                    break;
+                }
+                ReentrantLock lock = stripe(productId);
+                lock.lock();
+                try {
+                    // a refresh since the read may have seen a newer quantity; read again
+                    if (refreshVersion.get() == version) {
+                        entries.putIfAbsent(productId, new StockEntry(quantity.get()));
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-reads a product's quantity after it was changed outside the ledger (e.g. by an admin edit). The write-behind
+     * is paused while the quantity is read, but product locks are not held.
+     */
+    public void refresh(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Optional<Integer> quantity = productRepository.findQuantityByProductId(productId);
+            ReentrantLock lock = stripe(productId);
+            lock.lock();
+            try {
+                refreshVersion.incrementAndGet();
+                StockEntry entry = entries.get(productId);
+                if (entry == null) {
+                    return;
+                }
+                if (quantity.isPresent()) {
+                    entry.stored = quantity.get();
+                } else if (entry.held == 0 && entry.reserved == 0 && entry.unflushed == 0) {
+                    entries.remove(productId);
+                } else {
+                    entry.stored = 0;
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the sold units accumulated since the last flush to {@code products} in one batch.
+     *
+     * @return the number of products updated
+     */
+    public int flush() {
+        if (!enabled) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            SortedMap<Long, Integer> sold = new TreeMap<>();
+            for (Map.Entry<Long, StockEntry> item : entries.entrySet()) {
+                ReentrantLock lock = stripe(item.getKey());
+                lock.lock();
+                try {
+                    if (item.getValue().unflushed > 0) {
+                        sold.put(item.getKey(), item.getValue().unflushed);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (sold.isEmpty()) {
+                return 0;
+            }
+            productRepository.subtractStock(sold);
+            sold.forEach((productId, quantity) -> {
+                ReentrantLock lock = stripe(productId);
+                lock.lock();
+                try {
+                    StockEntry entry = entries.get(productId);
+                    entry.stored -= quantity;
+                    entry.unflushed -= quantity;
+                } finally {
+                    lock.unlock();
+                }
+            });
+            eventPublisher.publishEvent(new StockChangedEvent(Set.copyOf(sold.keySet())));
+            log.debug("Wrote back stock for {} products", sold.size());
+            return sold.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the holds whose TTL has passed.
+     */
+    void expireHolds() {
+        long now = clock.getAsLong();
+        for (HoldKey key : expirations.advance(now)) {
+            ReentrantLock lock = stripe(key.productId());
+            lock.lock();
+            try {
+                Map<Long, Hold> userHolds = holdsByUser.get(key.userId());
+                Hold hold = userHolds == null ? null : userHolds.get(key.productId());
+                if (hold != null && hold.expiresAt <= now) {
+                    releaseHold(key.userId(), key.productId());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void completeReservation(Long userId, SortedMap<Long, Integer> quantities, Map<Long, Integer> consumedHolds,
+                                     boolean committed) {
+        long expiresAt = clock.getAsLong() + holdTtlNanos;
+        List<ReentrantLock> locks = lockAll(quantities.keySet());
+        try {
+            quantities.forEach((productId, quantity) -> {
+                StockEntry entry = entries.get(productId);
+                entry.reserved -= quantity;
+                if (committed) {
+                    entry.unflushed += quantity;
+                } else {
+                    int held = consumedHolds.getOrDefault(productId, 0);
+                    if (held > 0) {
+                        entry.held += held;
+                        putHold(userId, productId, new Hold(held, expiresAt));
+                    }
+                }
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+        if (!committed) {
+            consumedHolds.forEach((productId, held) -> {
+                if (held > 0) {
+                    expirations.schedule(new HoldKey(userId, productId), expiresAt);
+                }
+            });
+        }
+    }
+
+    /**
+     * Caller holds the product's stripe. Returns the released quantity.
+     */
+    private int releaseHold(Long userId, Long productId) {
+        Hold[] released = new Hold[1];
+        holdsByUser.computeIfPresent(userId, (id, userHolds) -> {
+            released[0] = userHolds.remove(productId);
+            return userHolds.isEmpty() ? null : userHolds;
+        });
+        if (released[0] == null) {
+            return 0;
+        }
+        entries.get(productId).held -= released[0].quantity;
+        return released[0].quantity;
+    }
+
+    /**
+     * Caller holds the product's stripe. The per-user map is created and dropped inside compute, so a hold added
+     * for one product can't land in a map that a release for another product is removing.
+     */
+    private void putHold(Long userId, Long productId, Hold hold) {
+        holdsByUser.compute(userId, (id, userHolds) -> {
+            Map<Long, Hold> holds = userHolds == null ? new ConcurrentHashMap<>() : userHolds;
+            holds.put(productId, hold);
+            return holds;
+        });
+    }
+
+    /**
+     * Caller holds the product's stripe and has {@linkplain #load loaded} it; null if the product doesn't exist.
+     */
+    private StockEntry entry(Long productId) {
+        return entries.get(productId);
+    }
+
+    private List<ReentrantLock> lockAll(Set<Long> sortedProductIds) {
+        SortedSet<Integer> stripeIndexes = new TreeSet<>();
+        sortedProductIds.forEach(productId -> stripeIndexes.add(stripeIndex(productId)));
+        List<ReentrantLock> locks = new ArrayList<>(stripeIndexes.size());
+        for (int index : stripeIndexes) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private ReentrantLock stripe(Long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private static int stripeIndex(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), STRIPES);
+    }
+
+    private void expireHoldsQuietly() {
+        try {
+            expireHolds();
+        } catch (RuntimeException e) {
+            log.warn("Failed to expire inventory holds", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Inventory write-behind failed, will retry", e);
+        }
+    }
+
+    private static final class StockEntry {
+        private int stored;
+        private int held;
+        private int reserved;
+        private int unflushed;
+
+        private StockEntry(int stored) {
+            this.stored = stored;
+        }
+
+        private int available() {
+            return stored - unflushed - reserved - held;
+        }
+    }
+
+    private static final class Hold {
+        private int quantity;
+        private long expiresAt;
+
+        private Hold(int quantity, long expiresAt) {
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record HoldKey(Long userId, Long productId) {
+    }
+
+    public record StockChangedEvent(Set<Long> productIds) {
+    }
+}
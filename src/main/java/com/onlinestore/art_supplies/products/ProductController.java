@@ -2,6 +2,10 @@ package com.onlinestore.art_supplies.products;
 
 import com.onlinestore.art_supplies.category.Category;
 import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.config.JsonStreamWriter;
+import com.onlinestore.art_supplies.config.concurrency.ConcurrencyLimited;
+import com.onlinestore.art_supplies.dto.CursorPage;
+import com.onlinestore.art_supplies.dto.ProductResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -21,21 +26,50 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
     private final CategoryRepository categoryRepository;
+    private final JsonStreamWriter jsonStreamWriter;
 
-    public ProductController(ProductService productService, CategoryRepository categoryRepository) {
+    public ProductController(ProductService productService, CategoryRepository categoryRepository,
+                             JsonStreamWriter jsonStreamWriter) {
         this.productService = productService;
         this.categoryRepository = categoryRepository;
+        this.jsonStreamWriter = jsonStreamWriter;
     }
 
     @GetMapping("/all")
     @Operation(summary = "Retrieve all products",
             description = "Fetch a list of all products available in the database. Each product includes details such " +
-                    "as productId, productName, description, price, quantity, category, and image URL",
+                    "as productId, productName, description, price, quantity, category, and image URL. Products are " +
+                    "streamed from the database as they are read.",
+            parameters = {
+                    @Parameter(name = "format", description = "json for a JSON array, ndjson for one product per line",
+                            example = "json")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of products")
             })
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return new ResponseEntity<>(productService.getAllProducts(), HttpStatus.OK);
+    @ConcurrencyLimited("catalog-scan")
+    public ResponseEntity<StreamingResponseBody> getAllProducts(@RequestParam(defaultValue = "json") String format) {
+        return jsonStreamWriter.stream(productService::streamAllProducts, JsonStreamWriter.Format.from(format));
+    }
+
+    @GetMapping("/all/page")
+    @Operation(summary = "Retrieve products page by page",
+            description = "Keyset-paginated variant of /products/all. Products are ordered by productId; pass the " +
+                    "nextCursor of a page as cursor to get the following page.",
+            parameters = {
+                    @Parameter(name = "cursor", description = "Opaque cursor returned by the previous page"),
+                    @Parameter(name = "size", description = "Number of products per page (max 100)", example = "20"),
+                    @Parameter(name = "includeTotal", description = "Whether to count all matching products")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of products"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+            })
+    public ResponseEntity<CursorPage<ProductResponse>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(productService.getFilteredProductsAfter(cursor, size, null, null, includeTotal));
     }
 
     @GetMapping("/product/{productId}")
@@ -55,7 +89,7 @@ public class ProductController {
                     @ApiResponse(responseCode = "404", description = "Product not found")
             })
     public ResponseEntity<?> getProductById(@PathVariable Long productId) {
-        Product product = productService.getProductById(productId);
+        ProductResponse product = productService.getProductById(productId);
         if (product != null) {
             return new ResponseEntity<>(product, HttpStatus.OK);
         } else {
@@ -88,7 +122,7 @@ public class ProductController {
         }
         product.setCategory(category);
         Product savedProduct = productService.addProduct(product);
-        return ResponseEntity.ok(savedProduct);
+        return ResponseEntity.ok(ProductResponse.from(savedProduct));
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -122,11 +156,32 @@ public class ProductController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Search results found"),
             })
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        List<Product> products = productService.searchProducts(keyword);
+    @ConcurrencyLimited("catalog-search")
+    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword) {
+        List<ProductResponse> products = productService.searchProducts(keyword);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/search/page")
+    @Operation(summary = "Search for products page by page",
+            description = "Keyset-paginated variant of /products/search. Results keep their relevance order; pass " +
+                    "the nextCursor of a page as cursor to get the following page.",
+            parameters = {
+                    @Parameter(name = "keyword", description = "The keyword to search for. The search is case-insensitive.",
+                            required = true, example = "brush"),
+                    @Parameter(name = "cursor", description = "Opaque cursor returned by the previous page"),
+                    @Parameter(name = "size", description = "Number of products per page (max 100)", example = "20")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Search results found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+            })
+    public ResponseEntity<CursorPage<ProductResponse>> searchProductsPage(@RequestParam String keyword,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProducts(keyword, cursor, size));
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("/{productId}")
     @Operation(summary = "Update product",
@@ -148,7 +203,7 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No product found with the given ID.");
         }
         Product updated = productService.updateProduct(productId, updatedProduct);
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok(ProductResponse.from(updated));
     }
 
     @GetMapping("/filter")
@@ -158,12 +213,29 @@ public class ProductController {
                     @ApiResponse(responseCode = "200", description = "Products found"),
                     @ApiResponse(responseCode = "404", description = "No such category found")
             })
-    public ResponseEntity<?> filterProductsByCategory(
-            @RequestParam @Parameter(description = "Name of the category to filter products by", example = "brushes") String categoryName) {
-        List<Product> products = productService.getProductsByCategoryName(categoryName);
-        if (products.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No such category");
+    public ResponseEntity<StreamingResponseBody> filterProductsByCategory(
+            @RequestParam @Parameter(description = "Name of the category to filter products by", example = "brushes") String categoryName,
+            @RequestParam(defaultValue = "json") @Parameter(description = "json for a JSON array, ndjson for one product per line") String format) {
+        if (!productService.categoryHasProducts(categoryName)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such category");
         }
-        return ResponseEntity.ok(products);
+        return jsonStreamWriter.stream(() -> productService.streamProductsByCategoryName(categoryName),
+                JsonStreamWriter.Format.from(format));
+    }
+
+    @GetMapping("/filter/page")
+    @Operation(summary = "Filter products by category page by page",
+            description = "Keyset-paginated variant of /products/filter. Products are ordered by productId; pass the " +
+                    "nextCursor of a page as cursor to get the following page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Products found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+            })
+    public ResponseEntity<CursorPage<ProductResponse>> filterProductsByCategoryPage(
+            @RequestParam @Parameter(description = "Name of the category to filter products by", example = "brushes") String categoryName,
+            @RequestParam(required = false) @Parameter(description = "Opaque cursor returned by the previous page") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Number of products per page (max 100)") int size,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Whether to count all matching products") boolean includeTotal) {
+        return ResponseEntity.ok(productService.getFilteredProductsAfter(cursor, size, null, categoryName, includeTotal));
     }
 }
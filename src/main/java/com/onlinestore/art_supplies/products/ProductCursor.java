@@ -0,0 +1,36 @@
+package com.onlinestore.art_supplies.products;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the id of the last product returned and, for ranked search results, its score.
+ */
+record ProductCursor(long productId, int score) {
+
+    static ProductCursor after(long productId) {
+        return new ProductCursor(productId, 0);
+    }
+
+    static ProductCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new ProductCursor(Long.parseLong(value.substring(separator + 1)),
+                    separator < 0 ? 0 : Integer.parseInt(value.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+        }
+    }
+
+    String encode() {
+        String value = score == 0 ? Long.toString(productId) : score + ":" + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.onlinestore.art_supplies.products;
+
+import com.onlinestore.art_supplies.config.QueryCounter;
+import com.onlinestore.art_supplies.dto.ProductDetailsView;
+import com.onlinestore.art_supplies.dto.ProductResponse;
+import com.onlinestore.art_supplies.dto.ReviewResponse;
+import com.onlinestore.art_supplies.order.PurchaseHistory;
+import com.onlinestore.art_supplies.ratings.RatingService;
+import com.onlinestore.art_supplies.reviews.ReviewRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the product details page in a fixed number of queries: the user, the (cached) product, the rating
+ * stats row, the reviews and one purchase check. Edit/delete permissions are derived from the loaded reviews.
+ */
+@Slf4j
+@Service
+public class ProductDetailsService {
+    private final ProductService productService;
+    private final RatingService ratingService;
+    private final ReviewRepository reviewRepository;
+    private final PurchaseHistory purchaseHistory;
+    private final UserService userService;
+    private final QueryCounter queryCounter;
+    private final DistributionSummary queriesPerRender;
+
+    public ProductDetailsService(ProductService productService, RatingService ratingService,
+                                 ReviewRepository reviewRepository, PurchaseHistory purchaseHistory,
+                                 UserService userService, QueryCounter queryCounter, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.ratingService = ratingService;
+        this.reviewRepository = reviewRepository;
+        this.purchaseHistory = purchaseHistory;
+        this.userService = userService;
+        this.queryCounter = queryCounter;
+        this.queriesPerRender = DistributionSummary.builder("product.details.queries")
+                .description("SQL statements issued to render a product details page")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductDetailsView getProductDetails(Long productId, HttpServletRequest request) {
+        int queriesBefore = queryCounter.current();
+
+        User user = userService.getAuthenticatedUser(request);
+        ProductResponse product = productService.getProductById(productId);
+        if (product == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id: " + productId);
+        }
+        double averageRating = ratingService.getAverageRating(productId);
+        List<ReviewResponse> reviews = reviewRepository.findResponsesByProductId(productId);
+        boolean hasOrdered = user != null && purchaseHistory.hasPurchased(user.getUserId(), productId);
+
+        Map<Long, Boolean> canEditMap = new HashMap<>();
+        Map<Long, Boolean> canDeleteMap = new HashMap<>();
+        boolean isAdmin = user != null && Boolean.TRUE.equals(user.getIsAdmin());
+        for (ReviewResponse review : reviews) {
+            boolean canEdit = user != null && review.userId().equals(user.getUserId());
+            canEditMap.put(review.reviewId(), canEdit);
+            canDeleteMap.put(review.reviewId(), canEdit || isAdmin);
+        }
+
+        int queryCount = queryCounter.current() - queriesBefore;
+        queriesPerRender.record(queryCount);
+        log.debug("Rendered product {} details with {} queries", productId, queryCount);
+
+        return new ProductDetailsView(product, averageRating, reviews,
+                hasOrdered, hasOrdered, canEditMap, canDeleteMap, queryCount);
+    }
+}
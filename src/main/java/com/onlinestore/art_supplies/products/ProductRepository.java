@@ -1,15 +1,29 @@
 package com.onlinestore.art_supplies.products;
 
+import com.onlinestore.art_supplies.dto.ProductResponse;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
+    String SELECT_RESPONSE = "SELECT new com.onlinestore.art_supplies.dto.ProductResponse(p.productId, p.productName, " +
+            "p.description, p.price, p.quantity, c.categoryId, c.categoryName, p.image) FROM Product p ";
+
     @Query("SELECT p FROM Product p " +
             "JOIN p.category c " +
             "WHERE LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
@@ -17,12 +31,65 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "OR LOWER(c.categoryName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Product> searchProducts(String keyword);
 
+    @Query("SELECT p.quantity FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findQuantityByProductId(@Param("productId") Long productId);
+
     @Query("SELECT p FROM Product p  JOIN p.category c WHERE LOWER(c.categoryName) = LOWER(:categoryName)")
     List<Product> findByCategoryName(String categoryName);
 
+    boolean existsByCategory_CategoryNameIgnoreCase(String categoryName);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "LEFT JOIN p.category c ORDER BY p.productId")
+    Stream<ProductResponse> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "JOIN p.category c WHERE LOWER(c.categoryName) = LOWER(:categoryName) ORDER BY p.productId")
+    Stream<ProductResponse> streamByCategoryName(@Param("categoryName") String categoryName);
+
+    @Query(SELECT_RESPONSE + "LEFT JOIN p.category c WHERE p.productId = :productId")
+    Optional<ProductResponse> findResponseById(@Param("productId") Long productId);
+
+    @Query(SELECT_RESPONSE + "JOIN p.category c WHERE LOWER(c.categoryName) = LOWER(:categoryName) ORDER BY p.productId")
+    List<ProductResponse> findResponsesByCategoryName(@Param("categoryName") String categoryName);
+
+    @Query(SELECT_RESPONSE + "LEFT JOIN p.category c WHERE p.productId IN :productIds")
+    List<ProductResponse> findResponsesByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    List<Product> findByCategory_CategoryId(Long categoryId);
+
+    Slice<Product> findAllBy(Pageable pageable);
+
     Page<Product> findByProductNameContainingIgnoreCase(String keyword, Pageable pageable);
 
     Page<Product> findByCategory_CategoryNameIgnoreCase(String categoryName, Pageable pageable);
 
     Page<Product> findByProductNameContainingIgnoreCaseAndCategory_CategoryNameIgnoreCase(String keyword, String categoryName, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + "LEFT JOIN p.category c " +
+            "WHERE p.productId > :afterId " +
+            "AND (:keyword IS NULL OR LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+            "AND (:categoryName IS NULL OR LOWER(c.categoryName) = LOWER(:categoryName)) " +
+            "ORDER BY p.productId")
+    List<ProductResponse> findNextPage(@Param("afterId") Long afterId, @Param("keyword") String keyword,
+                               @Param("categoryName") String categoryName, Limit limit);
+
+    @Query(SELECT_RESPONSE + "JOIN p.category c " +
+            "WHERE p.productId > :afterId " +
+            "AND (LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR LOWER(c.categoryName) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+            "ORDER BY p.productId")
+    List<ProductResponse> searchNextPage(@Param("afterId") Long afterId, @Param("keyword") String keyword, Limit limit);
+
+    @Query("SELECT COUNT(p) FROM Product p JOIN p.category c " +
+            "WHERE LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR LOWER(c.categoryName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    long countSearch(@Param("keyword") String keyword);
+
+    @Query("SELECT COUNT(p) FROM Product p LEFT JOIN p.category c " +
+            "WHERE (:keyword IS NULL OR LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+            "AND (:categoryName IS NULL OR LOWER(c.categoryName) = LOWER(:categoryName))")
+    long countFiltered(@Param("keyword") String keyword, @Param("categoryName") String categoryName);
 }
@@ -0,0 +1,221 @@
+package com.onlinestore.art_supplies.products;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, description and category name.
+ * Each term maps to a posting list of product ids (sorted) and term frequencies kept in primitive arrays.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("productId"));
+            Slice<Product> slice;
+            do {
+                slice = productRepository.findAllBy(pageable);
+                slice.forEach(this::addDocument);
+                pageable = slice.nextPageable();
+            } while (slice.hasNext());
+            ready = true;
+            log.info("Product search index built: {} products, {} terms", documentTerms.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getProductId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reindexCategory(Long categoryId) {
+        List<Product> products = productRepository.findByCategory_CategoryId(categoryId);
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeDocument(product.getProductId());
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the products matching every token of the query (as a prefix of an indexed term),
+     * ordered by the summed term frequency and then by product id.
+     */
+    public List<Long> search(String query) {
+        return searchHits(query).stream().map(Hit::productId).toList();
+    }
+
+    /**
+     * Same as {@link #search(String)} but keeps the score of each hit, so callers can page through the ranking.
+     */
+    public List<Hit> searchHits(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : new LinkedHashSet<>(tokens)) {
+                Map<Long, Integer> matches = new HashMap<>();
+                for (PostingList postingList : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                    for (int i = 0; i < postingList.size; i++) {
+                        matches.merge(postingList.productIds[i], postingList.frequencies[i], Integer::sum);
+                    }
+                }
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    Map<Long, Integer> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : matches.entrySet()) {
+                        Integer score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .map(entry -> new Hit(entry.getKey(), entry.getValue()))
+                .sorted(Hit.RANKING)
+                .toList();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(product.getProductName()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        tokenize(product.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        if (product.getCategory() != null) {
+            tokenize(product.getCategory().getCategoryName()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        }
+        long productId = product.getProductId();
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new PostingList()).add(productId, frequency));
+        documentTerms.put(productId, frequencies.keySet().toArray(String[]::new));
+    }
+
+    private void removeDocument(Long productId) {
+        String[] terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList postingList = postings.get(term);
+            if (postingList != null && postingList.remove(productId) && postingList.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    public record Hit(long productId, int score) {
+        static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+                .thenComparingLong(Hit::productId);
+    }
+
+    static final class PostingList {
+        private long[] productIds = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(long productId, int frequency) {
+            int position = size == 0 || productIds[size - 1] < productId
+                    ? -(size + 1)
+                    : Arrays.binarySearch(productIds, 0, size, productId);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            int insertAt = -(position + 1);
+            if (size == productIds.length) {
+                productIds = Arrays.copyOf(productIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(productIds, insertAt, productIds, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            productIds[insertAt] = productId;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        boolean remove(long productId) {
+            int position = Arrays.binarySearch(productIds, 0, size, productId);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(productIds, position + 1, productIds, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -2,34 +2,90 @@ package com.onlinestore.art_supplies.products;
 
 import com.onlinestore.art_supplies.category.Category;
 import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.config.CacheConfig;
+import com.onlinestore.art_supplies.dto.CursorPage;
+import com.onlinestore.art_supplies.dto.ProductResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+    public static final int PRODUCTS_PER_PAGE = 6;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final CacheManager cacheManager;
+    private final InventoryLedger inventoryLedger;
+    /**
+     * The {@link CacheConfig#CATEGORY_PRODUCTS} key each product was last cached under, so a stock change evicts only
+     * its own category's list.
+     */
+    private final Map<Long, String> categoryKeysByProductId = new ConcurrentHashMap<>();
 
     @Autowired
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                          ProductSearchIndex productSearchIndex, CacheManager cacheManager,
+                          InventoryLedger inventoryLedger) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.cacheManager = cacheManager;
+        this.inventoryLedger = inventoryLedger;
     }
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
-    public Product getProductById(Long id) {
-        return productRepository.findById(id).orElse(null);
+    /**
+     * Must be consumed inside a transaction, see {@link com.onlinestore.art_supplies.config.JsonStreamWriter}.
+     */
+    public Stream<ProductResponse> streamAllProducts() {
+        return productRepository.streamAll();
+    }
+
+    public Stream<ProductResponse> streamProductsByCategoryName(String categoryName) {
+        return productRepository.streamByCategoryName(categoryName);
+    }
+
+    public boolean categoryHasProducts(String categoryName) {
+        return productRepository.existsByCategory_CategoryNameIgnoreCase(categoryName);
+    }
+
+    /**
+     * The product as an immutable {@link ProductResponse}, so the cached copy can be shared between requests.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, unless = "#result == null")
+    public ProductResponse getProductById(Long id) {
+        return productRepository.findResponseById(id).orElse(null);
     }
 
     public Product addProduct(Product product) {
@@ -38,18 +94,68 @@ public class ProductService {
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
             product.setCategory(existingCategory);
         }
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(savedProduct);
+        inventoryLedger.refresh(savedProduct.getProductId());
+        evictProduct(savedProduct.getProductId());
+        evictCategoryProducts(categoryNameOf(savedProduct));
+        return savedProduct;
     }
 
     public void deleteProduct(Long productId) {
         if (!productRepository.existsById(productId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + productId);
         }
+        String categoryName = productRepository.findById(productId).map(this::categoryNameOf).orElse(null);
         productRepository.deleteById(productId);
+        categoryKeysByProductId.remove(productId);
+        productSearchIndex.remove(productId);
+        inventoryLedger.refresh(productId);
+        evictProduct(productId);
+        evictCategoryProducts(categoryName);
     }
 
-    public List<Product> searchProducts(String keyword) {
-        return (keyword == null || keyword.trim().isEmpty()) ? List.of() : productRepository.searchProducts(keyword);
+    /**
+     * Takes the given quantities out of stock with conditional updates, so concurrent checkouts can never oversell.
+     * Rows are updated in product id order to keep lock acquisition consistent between transactions. If any product
+     * is short, an {@link InsufficientStockException} listing all of them rolls the surrounding transaction back.
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return;
+        }
+        SortedMap<Long, Integer> orderedQuantities = new TreeMap<>(quantitiesByProductId);
+        orderedQuantities.forEach((productId, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid quantity for product with id " + productId);
+            }
+        });
+        List<Long> failedProductIds = productRepository.decrementStock(orderedQuantities);
+        if (!failedProductIds.isEmpty()) {
+            throw new InsufficientStockException(failedProductIds, "Not enough stock for products " + failedProductIds);
+        }
+        Set<Long> productIds = orderedQuantities.keySet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictStock(productIds);
+                }
+            });
+        } else {
+            evictStock(productIds);
+        }
+    }
+
+    public List<ProductResponse> searchProducts(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return List.of();
+        }
+        if (!productSearchIndex.isReady()) {
+            return productRepository.searchProducts(keyword).stream().map(ProductResponse::from).toList();
+        }
+        return findResponsesInOrder(productSearchIndex.search(keyword));
     }
 
     public boolean productExistsById(Long productId) {
@@ -61,6 +167,7 @@ public class ProductService {
 
         if (existingProductOptional.isPresent()) {
             Product existingProduct = existingProductOptional.get();
+            String previousCategoryName = categoryNameOf(existingProduct);
 
             existingProduct.setProductName(updatedProduct.getProductName());
             existingProduct.setDescription(updatedProduct.getDescription());
@@ -69,18 +176,28 @@ public class ProductService {
             existingProduct.setImage(updatedProduct.getImage());
             existingProduct.setCategory(updatedProduct.getCategory());
 
-            return productRepository.save(existingProduct);
+            Product savedProduct = productRepository.save(existingProduct);
+            productSearchIndex.index(savedProduct);
+            inventoryLedger.refresh(productId);
+            evictProduct(productId);
+            evictCategoryProducts(previousCategoryName);
+            evictCategoryProducts(categoryNameOf(savedProduct));
+            return savedProduct;
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + productId);
         }
     }
 
-    public List<Product> getProductsByCategoryName(String categoryName) {
-        return productRepository.findByCategoryName(categoryName);
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_PRODUCTS, key = "#categoryName.toLowerCase(T(java.util.Locale).ROOT)")
+    public List<ProductResponse> getProductsByCategoryName(String categoryName) {
+        List<ProductResponse> products = List.copyOf(productRepository.findResponsesByCategoryName(categoryName));
+        String key = categoryName.toLowerCase(Locale.ROOT);
+        products.forEach(product -> categoryKeysByProductId.put(product.productId(), key));
+        return products;
     }
 
     public Page<Product> getFilteredProducts(int page, String keyword, String categoryName) {
-        Pageable pageable = PageRequest.of(page, 6); // 6 products per page
+        Pageable pageable = PageRequest.of(page, PRODUCTS_PER_PAGE);
         if ((keyword == null || keyword.isEmpty()) && (categoryName == null || categoryName.isEmpty())) {
             return productRepository.findAll(pageable);
         } else if (keyword != null && !keyword.isEmpty() && (categoryName == null || categoryName.isEmpty())) {
@@ -91,4 +208,124 @@ public class ProductService {
             return productRepository.findByProductNameContainingIgnoreCaseAndCategory_CategoryNameIgnoreCase(keyword, categoryName, pageable);
         }
     }
+
+    /**
+     * Keyset-paginated variant of {@link #getFilteredProducts}: products are ordered by id and the page starts
+     * right after the product encoded in {@code cursor}, so every page costs the same as the first one.
+     * The total is only counted when {@code includeTotal} is set.
+     */
+    public CursorPage<ProductResponse> getFilteredProductsAfter(String cursor, int size, String keyword, String categoryName,
+                                                        boolean includeTotal) {
+        ProductCursor after = ProductCursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        String keywordFilter = (keyword == null || keyword.isEmpty()) ? null : keyword;
+        String categoryFilter = (categoryName == null || categoryName.isEmpty()) ? null : categoryName;
+
+        List<ProductResponse> products = productRepository.findNextPage(after == null ? 0L : after.productId(),
+                keywordFilter, categoryFilter, Limit.of(pageSize + 1));
+        boolean hasNext = products.size() > pageSize;
+        List<ProductResponse> content = hasNext ? products.subList(0, pageSize) : products;
+        String nextCursor = hasNext ? ProductCursor.after(content.get(pageSize - 1).productId()).encode() : null;
+        Long total = includeTotal ? productRepository.countFiltered(keywordFilter, categoryFilter) : null;
+        return new CursorPage<>(content, nextCursor, hasNext, total);
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #searchProducts(String)}. The cursor carries the score and id of the last
+     * hit, so the page boundary stays stable while the ranking is recomputed on every call. Until the index is
+     * ready, pages come from the LIKE query in id order instead.
+     */
+    public CursorPage<ProductResponse> searchProducts(String keyword, String cursor, int size) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return new CursorPage<>(List.of(), null, false, 0L);
+        }
+        ProductCursor after = ProductCursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        if (!productSearchIndex.isReady()) {
+            List<ProductResponse> products = productRepository.searchNextPage(after == null ? 0L : after.productId(),
+                    keyword, Limit.of(pageSize + 1));
+            boolean hasNext = products.size() > pageSize;
+            List<ProductResponse> content = hasNext ? products.subList(0, pageSize) : products;
+            String nextCursor = hasNext ? ProductCursor.after(content.get(pageSize - 1).productId()).encode() : null;
+            return new CursorPage<>(content, nextCursor, hasNext, productRepository.countSearch(keyword));
+        }
+        List<ProductSearchIndex.Hit> hits = productSearchIndex.searchHits(keyword);
+        int from = 0;
+        if (after != null) {
+            ProductSearchIndex.Hit last = new ProductSearchIndex.Hit(after.productId(), after.score());
+            while (from < hits.size() && ProductSearchIndex.Hit.RANKING.compare(hits.get(from), last) <= 0) {
+                from++;
+            }
+        }
+        int to = Math.min(from + pageSize, hits.size());
+        List<ProductSearchIndex.Hit> pageHits = hits.subList(from, to);
+        List<ProductResponse> content = findResponsesInOrder(
+                pageHits.stream().map(ProductSearchIndex.Hit::productId).toList());
+
+        boolean hasNext = to < hits.size();
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSearchIndex.Hit last = pageHits.get(pageHits.size() - 1);
+            nextCursor = new ProductCursor(last.productId(), last.score()).encode();
+        }
+        return new CursorPage<>(content, nextCursor, hasNext, (long) hits.size());
+    }
+
+    private List<ProductResponse> findResponsesInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductResponse> productsById = productRepository.findResponsesByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductResponse::productId, Function.identity()));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private String categoryNameOf(Product product) {
+        Category category = product.getCategory();
+        if (category == null) {
+            return null;
+        }
+        if (category.getCategoryName() == null && category.getCategoryId() != null) {
+            return categoryRepository.findById(category.getCategoryId()).map(Category::getCategoryName).orElse(null);
+        }
+        return category.getCategoryName();
+    }
+
+    private void evictProduct(Long productId) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (cache != null && productId != null) {
+            cache.evict(productId);
+        }
+    }
+
+    private void evictCategoryProducts(String categoryName) {
+        Cache cache = cacheManager.getCache(CacheConfig.CATEGORY_PRODUCTS);
+        if (cache != null && categoryName != null) {
+            cache.evict(categoryName.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @EventListener
+    public void onStockChanged(InventoryLedger.StockChangedEvent event) {
+        evictStock(event.productIds());
+    }
+
+    private void evictStock(Set<Long> productIds) {
+        productIds.forEach(this::evictProduct);
+        Cache cache = cacheManager.getCache(CacheConfig.CATEGORY_PRODUCTS);
+        if (cache != null) {
+            productIds.stream()
+                    .map(categoryKeysByProductId::get)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(cache::evict);
+        }
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
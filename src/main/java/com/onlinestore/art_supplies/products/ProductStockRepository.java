@@ -0,0 +1,23 @@
+package com.onlinestore.art_supplies.products;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Stock updates that bypass the entity so they can be applied atomically in the database.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Decrements each product's quantity only if enough stock is left, in one JDBC batch and in product id order.
+     *
+     * @return the ids of the products whose stock was too low (and therefore left unchanged)
+     */
+    List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Unconditionally subtracts the given quantities, in one JDBC batch and in product id order. Used to write back
+     * sales that {@link InventoryLedger} has already checked against the available stock.
+     */
+    void subtractStock(SortedMap<Long, Integer> quantitiesByProductId);
+}
@@ -0,0 +1,54 @@
+package com.onlinestore.art_supplies.products;
+
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+class ProductStockRepositoryImpl implements ProductStockRepository {
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ?";
+    private static final String SUBTRACT_STOCK = "UPDATE products SET quantity = quantity - ? WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantitiesByProductId.entrySet());
+        int[][] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, entries, entries.size(), (statement, entry) -> {
+            statement.setInt(1, entry.getValue());
+            statement.setLong(2, entry.getKey());
+            statement.setInt(3, entry.getValue());
+        });
+        List<Long> failedProductIds = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : updateCounts) {
+            for (int updateCount : batch) {
+                if (updateCount == 0) {
+                    failedProductIds.add(entries.get(i).getKey());
+                } else if (updateCount != 1) {
+                    // e.g. SUCCESS_NO_INFO from a rewritten batch: the guard can't be confirmed, so don't sell
+                    throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(DECREMENT_STOCK, 1, updateCount);
+                }
+                i++;
+            }
+        }
+        return failedProductIds;
+    }
+
+    @Override
+    public void subtractStock(SortedMap<Long, Integer> quantitiesByProductId) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantitiesByProductId.entrySet());
+        jdbcTemplate.batchUpdate(SUBTRACT_STOCK, entries, entries.size(), (statement, entry) -> {
+            statement.setInt(1, entry.getValue());
+            statement.setLong(2, entry.getKey());
+        });
+    }
+}
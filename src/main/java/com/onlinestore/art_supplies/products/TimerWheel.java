@@ -0,0 +1,64 @@
+package com.onlinestore.art_supplies.products;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Hashed timer wheel: deadlines are dropped into the bucket of their tick, and each {@link #advance} only looks at the
+ * buckets of the ticks that have passed, so scheduling and expiring are O(1) however many timeouts are pending.
+ * Timeouts further away than one revolution stay in their bucket until their round comes up.
+ */
+final class TimerWheel<K> {
+    private final Queue<Timeout<K>>[] buckets;
+    private final int mask;
+    private final long tickNanos;
+    private final long startNanos;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(int bucketCount, long tickNanos, long startNanos) {
+        int size = Integer.highestOneBit(Math.max(2, bucketCount) - 1) << 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+    }
+
+    synchronized void schedule(K key, long deadlineNanos) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadlineNanos - startNanos, tickNanos));
+        buckets[(int) (deadlineTick & mask)].add(new Timeout<>(key, deadlineTick));
+    }
+
+    /**
+     * Moves the wheel up to {@code nowNanos} and returns the keys whose deadline has passed.
+     */
+    synchronized List<K> advance(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            Queue<Timeout<K>> bucket = buckets[(int) (currentTick & mask)];
+            for (int i = bucket.size(); i > 0; i--) {
+                Timeout<K> timeout = bucket.poll();
+                if (timeout.deadlineTick() <= currentTick) {
+                    expired.add(timeout.key());
+                } else {
+                    bucket.add(timeout);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private record Timeout<K>(K key, long deadlineTick) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.onlinestore.art_supplies.ratings;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Running rating totals for one product, kept in step with the ratings table by {@link RatingStatsService}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "product_rating_stats")
+public class ProductRatingStats {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "one_star", nullable = false)
+    private long oneStar;
+
+    @Column(name = "two_stars", nullable = false)
+    private long twoStars;
+
+    @Column(name = "three_stars", nullable = false)
+    private long threeStars;
+
+    @Column(name = "four_stars", nullable = false)
+    private long fourStars;
+
+    @Column(name = "five_stars", nullable = false)
+    private long fiveStars;
+
+    public ProductRatingStats(Long productId) {
+        this.productId = productId;
+    }
+
+    public double getAverage() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    public List<Long> getDistribution() {
+        return List.of(oneStar, twoStars, threeStars, fourStars, fiveStars);
+    }
+}
@@ -0,0 +1,45 @@
+package com.onlinestore.art_supplies.ratings;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, Long> {
+
+    @Modifying
+    @Query("UPDATE ProductRatingStats s SET s.ratingCount = s.ratingCount + 1, s.ratingSum = s.ratingSum + :rating, " +
+            "s.oneStar = s.oneStar + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "s.twoStars = s.twoStars + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "s.threeStars = s.threeStars + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "s.fourStars = s.fourStars + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "s.fiveStars = s.fiveStars + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE s.productId = :productId")
+    int increment(@Param("productId") Long productId, @Param("rating") int rating);
+
+    /**
+     * Plain INSERT rather than {@code save}: with an assigned id, save would merge zero totals over a row another
+     * request just created and incremented. Inserts nothing when the row exists; two concurrent first inserts fail on
+     * the primary key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, rating_count, rating_sum, " +
+            "one_star, two_stars, three_stars, four_stars, five_stars) " +
+            "SELECT :productId, 0, 0, 0, 0, 0, 0, 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM product_rating_stats WHERE product_id = :productId)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("productId") Long productId);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, rating_count, rating_sum, " +
+            "one_star, two_stars, three_stars, four_stars, five_stars) " +
+            "SELECT product_id, COUNT(*), SUM(rating), " +
+            "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) " +
+            "FROM ratings WHERE product_id IS NOT NULL AND rating IS NOT NULL GROUP BY product_id",
+            nativeQuery = true)
+    int insertFromRatings();
+}
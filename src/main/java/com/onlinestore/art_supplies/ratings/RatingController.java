@@ -1,14 +1,20 @@
 package com.onlinestore.art_supplies.ratings;
 
+import com.onlinestore.art_supplies.config.JsonStreamWriter;
 import com.onlinestore.art_supplies.dto.RatingRequest;
+import com.onlinestore.art_supplies.dto.RatingResponse;
+import com.onlinestore.art_supplies.dto.RatingSummary;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,10 +22,14 @@ import java.util.List;
 @RestController
 @RequestMapping("/ratings")
 public class RatingController {
+    static final int MAX_SUMMARY_IDS = 100;
+
     private final RatingService ratingService;
+    private final JsonStreamWriter jsonStreamWriter;
 
-    public RatingController(RatingService ratingService) {
+    public RatingController(RatingService ratingService, JsonStreamWriter jsonStreamWriter) {
         this.ratingService = ratingService;
+        this.jsonStreamWriter = jsonStreamWriter;
     }
 
     @PostMapping
@@ -36,12 +46,12 @@ public class RatingController {
                     @ApiResponse(responseCode = "403", description = "User is not logged in"),
                     @ApiResponse(responseCode = "404", description = "User or product not found")
             })
-    public ResponseEntity<Rating> createRating(
+    public ResponseEntity<RatingResponse> createRating(
             @RequestBody @Valid RatingRequest ratingRequest) {
         Rating createdRating = ratingService.createRating(
                 ratingRequest.getRatingValue(),
                 ratingRequest.getProductId());
-        return ResponseEntity.ok(createdRating);
+        return ResponseEntity.ok(RatingResponse.from(createdRating));
     }
 
     @GetMapping("/product/{productId}")
@@ -59,19 +69,53 @@ public class RatingController {
                     @ApiResponse(responseCode = "200", description = "Ratings found"),
                     @ApiResponse(responseCode = "404", description = "Ratings not found")
             })
-    public ResponseEntity<List<Rating>> getRatingsByProductId(@PathVariable Long productId) {
-        List<Rating> ratings = ratingService.getRatingsByProductId(productId);
+    public ResponseEntity<List<RatingResponse>> getRatingsByProductId(@PathVariable Long productId) {
+        List<RatingResponse> ratings = ratingService.getRatingResponsesByProductId(productId);
         return ResponseEntity.ok(ratings);
     }
 
+    @GetMapping("/summary")
+    @Operation(summary = "Get rating summaries for several products",
+            description = "Returns the rating count, average and distribution of each requested product, in one lookup.",
+            parameters = {
+                    @Parameter(name = "ids", description = "Comma separated product ids (at most " + MAX_SUMMARY_IDS + ")",
+                            required = true, example = "1,2,3")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Rating summaries found"),
+                    @ApiResponse(responseCode = "400", description = "Too many product ids")
+            })
+    public ResponseEntity<List<RatingSummary>> getRatingSummaries(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_SUMMARY_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_SUMMARY_IDS + " product ids are allowed");
+        }
+        return ResponseEntity.ok(List.copyOf(ratingService.getRatingSummaries(ids).values()));
+    }
+
+    @GetMapping("/product/{productId}/summary")
+    @Operation(summary = "Get the rating summary of a product",
+            description = "Returns the number of ratings, the average rating and how many ratings of each value (1 to 5) a product has.",
+            parameters = {
+                    @Parameter(name = "productId", description = "The unique identifier of the product", required = true, example = "8")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Rating summary found")
+            })
+    public ResponseEntity<RatingSummary> getRatingSummary(@PathVariable Long productId) {
+        return ResponseEntity.ok(ratingService.getRatingSummary(productId));
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get all ratings",
-            description = "Retrieves a list of all ratings across all products.",
+            description = "Retrieves a list of all ratings across all products, streamed as they are read.",
+            parameters = {
+                    @Parameter(name = "format", description = "json for a JSON array, ndjson for one rating per line",
+                            example = "json")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Ratings found")
             })
-    public ResponseEntity<List<Rating>> allRatings() {
-        List<Rating> ratings = ratingService.getAllRatings();
-        return ResponseEntity.ok(ratings);
+    public ResponseEntity<StreamingResponseBody> allRatings(@RequestParam(defaultValue = "json") String format) {
+        return jsonStreamWriter.stream(ratingService::streamAllRatings, JsonStreamWriter.Format.from(format));
     }
 }
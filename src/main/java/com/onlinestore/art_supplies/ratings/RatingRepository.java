@@ -1,11 +1,29 @@
 package com.onlinestore.art_supplies.ratings;
 
+import com.onlinestore.art_supplies.dto.RatingResponse;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
+    String SELECT_RESPONSE = "SELECT new com.onlinestore.art_supplies.dto.RatingResponse(r.ratingId, p.productId, " +
+            "u.userId, u.username, r.rating) FROM Rating r JOIN r.product p JOIN r.user u ";
+
     List<Rating> findByProduct_ProductId(Long productId);
+
+    @Query(SELECT_RESPONSE + "WHERE p.productId = :productId ORDER BY r.ratingId")
+    List<RatingResponse> findResponsesByProductId(@Param("productId") Long productId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "ORDER BY r.ratingId")
+    Stream<RatingResponse> streamAll();
 }
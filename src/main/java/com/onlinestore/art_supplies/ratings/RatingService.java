@@ -1,5 +1,8 @@
 package com.onlinestore.art_supplies.ratings;
 
+import com.onlinestore.art_supplies.dto.RatingResponse;
+import com.onlinestore.art_supplies.dto.RatingSummary;
+import com.onlinestore.art_supplies.order.PurchaseHistory;
 import com.onlinestore.art_supplies.products.Product;
 import com.onlinestore.art_supplies.products.ProductRepository;
 import com.onlinestore.art_supplies.reviews.ReviewService;
@@ -9,9 +12,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class RatingService {
@@ -19,15 +27,20 @@ public class RatingService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final ReviewService reviewService;
+    private final RatingStatsService ratingStatsService;
+    private final PurchaseHistory purchaseHistory;
 
 
-    public RatingService(RatingRepository ratingRepository, ProductRepository productRepository, UserRepository userRepository, ReviewService reviewService) {
+    public RatingService(RatingRepository ratingRepository, ProductRepository productRepository, UserRepository userRepository, ReviewService reviewService, RatingStatsService ratingStatsService, PurchaseHistory purchaseHistory) {
         this.ratingRepository = ratingRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.reviewService = reviewService;
+        this.ratingStatsService = ratingStatsService;
+        this.purchaseHistory = purchaseHistory;
     }
 
+    @Transactional
     public Rating createRating(Integer ratingValue, Long productId) {
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String username = userDetails.getUsername();
@@ -40,7 +53,9 @@ public class RatingService {
             rating.setRating(ratingValue);
             rating.setProduct(product);
             rating.setUser(user);
-            return ratingRepository.save(rating);
+            Rating savedRating = ratingRepository.save(rating);
+            ratingStatsService.recordRating(productId, ratingValue);
+            return savedRating;
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User has not ordered this product.");
         }
@@ -50,23 +65,43 @@ public class RatingService {
         return ratingRepository.findByProduct_ProductId(productId);
     }
 
+    public List<RatingResponse> getRatingResponsesByProductId(Long productId) {
+        return ratingRepository.findResponsesByProductId(productId);
+    }
+
     public List<Rating> getAllRatings() {
         return ratingRepository.findAll();
     }
 
+    public Stream<RatingResponse> streamAllRatings() {
+        return ratingRepository.streamAll();
+    }
+
     public Double getAverageRating(Long productId) {
-        List<Rating> ratings = getRatingsByProductId(productId);
-        if (ratings.isEmpty()) {
-            return 0.0;
-        }
-        double totalRating = 0;
-        for (Rating rating : ratings) {
-            totalRating += rating.getRating();
+        return getRatingSummary(productId).average();
+    }
+
+    public RatingSummary getRatingSummary(Long productId) {
+        return ratingStatsService.getStats(productId)
+                .map(RatingSummary::from)
+                .orElseGet(() -> RatingSummary.empty(productId));
+    }
+
+    /**
+     * Rating summaries for many products in one query, keyed by product id in the order given.
+     * Products without ratings get an empty summary.
+     */
+    public Map<Long, RatingSummary> getRatingSummaries(Collection<Long> productIds) {
+        Map<Long, RatingSummary> summaries = new LinkedHashMap<>();
+        productIds.forEach(productId -> summaries.put(productId, RatingSummary.empty(productId)));
+        if (!summaries.isEmpty()) {
+            ratingStatsService.getStats(summaries.keySet())
+                    .forEach(stats -> summaries.put(stats.getProductId(), RatingSummary.from(stats)));
         }
-        return totalRating / ratings.size();
+        return summaries;
     }
 
     public boolean canUserRateProduct(User user, Long productId) {
-        return reviewService.userHasOrderedProduct(user, productId);
+        return purchaseHistory.hasPurchased(user.getUserId(), productId);
     }
 }
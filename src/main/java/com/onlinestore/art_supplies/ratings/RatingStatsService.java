@@ -0,0 +1,80 @@
+package com.onlinestore.art_supplies.ratings;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains {@link ProductRatingStats}: an in-place increment per new rating and a full rebuild from the ratings table.
+ */
+@Slf4j
+@Service
+public class RatingStatsService {
+    private final ProductRatingStatsRepository statsRepository;
+    private final TransactionTemplate newTransaction;
+
+    public RatingStatsService(ProductRatingStatsRepository statsRepository, PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Adds one rating to the product's totals with a single UPDATE, so concurrent ratings never lose an increment.
+     * The first rating of a product creates the row in its own transaction; losing that race to another request is fine.
+     */
+    @Transactional
+    public void recordRating(Long productId, int rating) {
+        if (statsRepository.increment(productId, rating) > 0) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> statsRepository.insertIfAbsent(productId));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Rating stats row for product {} was created concurrently", productId);
+        }
+        statsRepository.increment(productId, rating);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductRatingStats> getStats(Long productId) {
+        return statsRepository.findById(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductRatingStats> getStats(Collection<Long> productIds) {
+        return statsRepository.findAllById(productIds);
+    }
+
+    /**
+     * Recomputes every product's totals from the ratings table. Runs nightly by default and should be kept off-peak,
+     * since ratings created while it runs may be counted before the rows are replaced.
+     */
+    @Scheduled(cron = "${ratings.stats.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public int rebuild() {
+        statsRepository.deleteAllInBatch();
+        int products = statsRepository.insertFromRatings();
+        log.info("Rebuilt rating stats for {} products", products);
+        return products;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (statsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+}
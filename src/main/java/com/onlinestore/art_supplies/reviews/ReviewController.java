@@ -1,7 +1,10 @@
 package com.onlinestore.art_supplies.reviews;
 
+import com.onlinestore.art_supplies.config.JsonStreamWriter;
 import com.onlinestore.art_supplies.dto.ReviewRequest;
+import com.onlinestore.art_supplies.dto.ReviewResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,10 +23,12 @@ import java.util.List;
 @RequestMapping("/reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, JsonStreamWriter jsonStreamWriter) {
         this.reviewService = reviewService;
+        this.jsonStreamWriter = jsonStreamWriter;
     }
 
     @PostMapping
@@ -35,12 +41,12 @@ public class ReviewController {
                     @ApiResponse(responseCode = "401", description = "User is not logged in"),
                     @ApiResponse(responseCode = "404", description = "Product or user not found")
             })
-    public ResponseEntity<Review> createReview(
+    public ResponseEntity<ReviewResponse> createReview(
             @RequestBody @Valid ReviewRequest reviewRequest) {
         Review  createdReview = reviewService.createReview(
                 reviewRequest.getReviewText(),
                 reviewRequest.getProductId());
-        return ResponseEntity.ok(createdReview);
+        return ResponseEntity.ok(ReviewResponse.from(createdReview));
     }
 
     @DeleteMapping("/{reviewId}")
@@ -65,8 +71,8 @@ public class ReviewController {
                     @ApiResponse(responseCode = "200", description = "Reviews found"),
                     @ApiResponse(responseCode = "404", description = "No reviews found for product")
             })
-    public ResponseEntity<List<Review>> getReviewsByProductId(@PathVariable Long productId) {
-        List<Review> reviews = reviewService.getReviewsByProductId(productId);
+    public ResponseEntity<List<ReviewResponse>> getReviewsByProductId(@PathVariable Long productId) {
+        List<ReviewResponse> reviews = reviewService.getReviewResponsesByProductId(productId);
         if (reviews.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No reviews found for product with id " + productId);
         }
@@ -75,12 +81,15 @@ public class ReviewController {
 
     @GetMapping
     @Operation(summary = "Get all reviews",
-            description = "Get all reviews",
+            description = "Get all reviews, streamed as they are read",
+            parameters = {
+                    @Parameter(name = "format", description = "json for a JSON array, ndjson for one review per line",
+                            example = "json")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Reviews found")
             })
-    public ResponseEntity<List<Review>> getAllReviews() {
-        List<Review> reviews = reviewService.getAllReviews();
-        return ResponseEntity.ok(reviews);
+    public ResponseEntity<StreamingResponseBody> getAllReviews(@RequestParam(defaultValue = "json") String format) {
+        return jsonStreamWriter.stream(reviewService::streamAllReviews, JsonStreamWriter.Format.from(format));
     }
 }
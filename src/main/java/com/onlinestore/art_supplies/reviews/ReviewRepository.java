@@ -1,11 +1,29 @@
 package com.onlinestore.art_supplies.reviews;
 
+import com.onlinestore.art_supplies.dto.ReviewResponse;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    String SELECT_RESPONSE = "SELECT new com.onlinestore.art_supplies.dto.ReviewResponse(r.reviewId, p.productId, " +
+            "u.userId, u.username, r.reviewText, r.createdAt) FROM Review r JOIN r.product p JOIN r.user u ";
+
     List<Review> findReviewByProduct_ProductId(Long productId);
+
+    @Query(SELECT_RESPONSE + "WHERE p.productId = :productId ORDER BY r.reviewId")
+    List<ReviewResponse> findResponsesByProductId(@Param("productId") Long productId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "ORDER BY r.reviewId")
+    Stream<ReviewResponse> streamAll();
 }
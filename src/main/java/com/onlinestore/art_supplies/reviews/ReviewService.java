@@ -1,6 +1,7 @@
 package com.onlinestore.art_supplies.reviews;
 
-import com.onlinestore.art_supplies.order.OrderRepository;
+import com.onlinestore.art_supplies.dto.ReviewResponse;
+import com.onlinestore.art_supplies.order.PurchaseHistory;
 import com.onlinestore.art_supplies.products.Product;
 import com.onlinestore.art_supplies.products.ProductRepository;
 import com.onlinestore.art_supplies.users.User;
@@ -12,17 +13,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class ReviewService {
     private final ReviewRepository reviewRepository;
-    private final OrderRepository orderRepository;
+    private final PurchaseHistory purchaseHistory;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
 
-    public ReviewService(ReviewRepository reviewRepository, OrderRepository orderRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, PurchaseHistory purchaseHistory, ProductRepository productRepository, UserRepository userRepository) {
         this.reviewRepository = reviewRepository;
-        this.orderRepository = orderRepository;
+        this.purchaseHistory = purchaseHistory;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
     }
@@ -75,6 +77,10 @@ public class ReviewService {
         return reviewRepository.findReviewByProduct_ProductId(productId);
     }
 
+    public List<ReviewResponse> getReviewResponsesByProductId(Long productId) {
+        return reviewRepository.findResponsesByProductId(productId);
+    }
+
     public Long getProductIdByReviewId(Long reviewId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found with id: " + reviewId));
@@ -85,12 +91,19 @@ public class ReviewService {
         return reviewRepository.findAll();
     }
 
+    public Stream<ReviewResponse> streamAllReviews() {
+        return reviewRepository.streamAll();
+    }
+
+    /**
+     * Purchase check for writes: answered from memory, but a no is confirmed against the database.
+     */
     public boolean userHasOrderedProduct(User user, Long productId) {
-        return orderRepository.existsByUserAndOrderItems_Product_ProductId(user, productId);
+        return purchaseHistory.confirmPurchased(user.getUserId(), productId);
     }
 
     public boolean canUserReviewProduct(User user, Long productId) {
-        return userHasOrderedProduct(user, productId);
+        return purchaseHistory.hasPurchased(user.getUserId(), productId);
     }
 
     public boolean canUserEditReview(User user, Long reviewId) {
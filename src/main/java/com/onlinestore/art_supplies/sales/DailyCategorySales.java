@@ -0,0 +1,43 @@
+package com.onlinestore.art_supplies.sales;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Units sold and revenue of one category on one day.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "daily_category_sales")
+@IdClass(DailyCategorySales.Id.class)
+public class DailyCategorySales {
+    @jakarta.persistence.Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @jakarta.persistence.Id
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Id implements Serializable {
+        private LocalDate saleDate;
+        private Long categoryId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.dto.DailySalesResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, DailyCategorySales.Id> {
+    @Query("SELECT new com.onlinestore.art_supplies.dto.DailySalesResponse(s.saleDate, s.units, s.revenue) " +
+            "FROM DailyCategorySales s WHERE s.categoryId = :categoryId AND s.saleDate BETWEEN :from AND :to " +
+            "ORDER BY s.saleDate")
+    List<DailySalesResponse> findDailyTotals(@Param("categoryId") Long categoryId, @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to);
+}
@@ -0,0 +1,27 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.dto.DailySalesResponse;
+import com.onlinestore.art_supplies.dto.TopSellerResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, Long> {
+    @Query("SELECT new com.onlinestore.art_supplies.dto.DailySalesResponse(s.saleDate, SUM(s.units), SUM(s.revenue)) " +
+            "FROM DailyProductSales s WHERE s.saleDate BETWEEN :from AND :to GROUP BY s.saleDate ORDER BY s.saleDate")
+    List<DailySalesResponse> findDailyTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.onlinestore.art_supplies.dto.TopSellerResponse(s.productId, p.productName, SUM(s.units), " +
+            "SUM(s.revenue)) FROM DailyProductSales s LEFT JOIN Product p ON p.productId = s.productId " +
+            "WHERE s.saleDate BETWEEN :from AND :to " +
+            "AND (:categoryId IS NULL OR s.categoryId = :categoryId) " +
+            "GROUP BY s.productId, p.productName ORDER BY SUM(s.units) DESC, SUM(s.revenue) DESC, s.productId")
+    List<TopSellerResponse> findTopSellers(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("categoryId") Long categoryId, Pageable pageable);
+}
@@ -0,0 +1,94 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.dto.DailySalesResponse;
+import com.onlinestore.art_supplies.dto.TopSellerResponse;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Tag(name = "Sales Report Controller", description = "Sales reports for admins, served from the daily rollups")
+@RestController
+@RequestMapping("/admin/sales")
+public class SalesReportController {
+    private final SalesRollupService salesRollupService;
+    private final UserService userService;
+
+    public SalesReportController(SalesRollupService salesRollupService, UserService userService) {
+        this.salesRollupService = salesRollupService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/revenue")
+    @Operation(summary = "Get revenue by day",
+            description = "Units sold and revenue per day in the date range, for the whole store or one category",
+            parameters = {
+                    @Parameter(name = "from", description = "First day (inclusive)", required = true, example = "2025-01-01"),
+                    @Parameter(name = "to", description = "Last day (inclusive, at most 366 days after from)", required = true, example = "2025-01-31"),
+                    @Parameter(name = "categoryId", description = "Only count this category", example = "1")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Revenue found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range"),
+                    @ApiResponse(responseCode = "403", description = "User is not an admin")
+            })
+    public List<DailySalesResponse> getRevenueByDay(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                    @RequestParam(required = false) Long categoryId,
+                                                    HttpServletRequest request) {
+        checkAdmin(request);
+        return salesRollupService.getRevenueByDay(from, to, categoryId);
+    }
+
+    @GetMapping("/top-sellers")
+    @Operation(summary = "Get top sellers",
+            description = "Products with the most units sold in the date range, optionally within one category",
+            parameters = {
+                    @Parameter(name = "from", description = "First day (inclusive)", required = true, example = "2025-01-01"),
+                    @Parameter(name = "to", description = "Last day (inclusive, at most 366 days after from)", required = true, example = "2025-01-31"),
+                    @Parameter(name = "categoryId", description = "Only rank products of this category", example = "1"),
+                    @Parameter(name = "limit", description = "Number of products (max 100)", example = "10")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Top sellers found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range or limit"),
+                    @ApiResponse(responseCode = "403", description = "User is not an admin")
+            })
+    public List<TopSellerResponse> getTopSellers(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                 @RequestParam(required = false) Long categoryId,
+                                                 @RequestParam(defaultValue = "10") int limit,
+                                                 HttpServletRequest request) {
+        checkAdmin(request);
+        return salesRollupService.getTopSellers(from, to, categoryId, limit);
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild sales rollups",
+            description = "Recompute the daily rollups from all orders; returns the number of order lines read",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Rollups rebuilt"),
+                    @ApiResponse(responseCode = "403", description = "User is not an admin")
+            })
+    public long rebuild(HttpServletRequest request) {
+        checkAdmin(request);
+        return salesRollupService.rebuild();
+    }
+
+    private void checkAdmin(HttpServletRequest request) {
+        User user = userService.getAuthenticatedUser(request);
+        if (user == null || !Boolean.TRUE.equals(user.getIsAdmin())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admins can see sales reports");
+        }
+    }
+}
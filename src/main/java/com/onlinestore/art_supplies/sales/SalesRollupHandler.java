@@ -0,0 +1,32 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.order.OrderPlacedEvent;
+import com.onlinestore.art_supplies.outbox.OutboxHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds placed orders into the daily sales rollups.
+ */
+@Component
+public class SalesRollupHandler implements OutboxHandler<OrderPlacedEvent> {
+    private final SalesRollupService salesRollupService;
+
+    public SalesRollupHandler(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    @Override
+    public String eventType() {
+        return OrderPlacedEvent.TYPE;
+    }
+
+    @Override
+    public Class<OrderPlacedEvent> payloadType() {
+        return OrderPlacedEvent.class;
+    }
+
+    @Override
+    public void handle(OrderPlacedEvent event) {
+        salesRollupService.recordOrder(event);
+    }
+}
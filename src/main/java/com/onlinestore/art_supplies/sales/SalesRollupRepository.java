@@ -0,0 +1,114 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.order.OrderPlacedEvent;
+import com.onlinestore.art_supplies.outbox.OutboxEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batched writes to the daily rollup tables and the keyset-ordered read of order lines used by the backfill.
+ */
+@Repository
+class SalesRollupRepository {
+    private static final String PRODUCT_TABLE = "daily_product_sales";
+    private static final String CATEGORY_TABLE = "daily_category_sales";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SalesRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    record OrderLine(long itemId, LocalDateTime orderDate, Long productId, Long categoryId, int quantity,
+                     BigDecimal price) {
+    }
+
+    /**
+     * A product sold under the category it had when ordered; the category is null for products without one.
+     */
+    record ProductKey(Long productId, Long categoryId) {
+    }
+
+    void addProductSales(LocalDate day, Map<ProductKey, SalesTotals> totals) {
+        add(PRODUCT_TABLE, List.of("product_id", "category_id"), day, totals,
+                key -> new Object[]{key.productId(), key.categoryId()});
+    }
+
+    void addCategorySales(LocalDate day, Map<Long, SalesTotals> totals) {
+        add(CATEGORY_TABLE, List.of("category_id"), day, totals, key -> new Object[]{key});
+    }
+
+    void deleteAll() {
+        jdbcTemplate.update("DELETE FROM " + PRODUCT_TABLE);
+        jdbcTemplate.update("DELETE FROM " + CATEGORY_TABLE);
+    }
+
+    /**
+     * Next chunk of order lines after {@code afterItemId}, in item id order, leaving out orders whose order.placed
+     * event is still pending in the outbox. Lines are counted under the category recorded on the order item, like
+     * the events do; items from before it was recorded fall back to the product's current category.
+     */
+    List<OrderLine> findOrderLines(long afterItemId, int limit) {
+        return jdbcTemplate.query("SELECT oi.id, o.order_date, oi.product_id, COALESCE(oi.category_id, p.category_id), " +
+                        "oi.quantity, oi.price " +
+                        "FROM order_items oi JOIN orders o ON o.order_id = oi.order_id " +
+                        "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                        "WHERE oi.id > ? AND NOT EXISTS (SELECT 1 FROM outbox_events e " +
+                        "WHERE e.event_type = ? AND e.aggregate_id = o.order_id AND e.status = ?) " +
+                        "ORDER BY oi.id LIMIT ?",
+                (row, rowNum) -> new OrderLine(row.getLong(1), row.getTimestamp(2).toLocalDateTime(),
+                        row.getObject(3, Long.class), row.getObject(4, Long.class), row.getInt(5),
+                        row.getBigDecimal(6)),
+                afterItemId, OrderPlacedEvent.TYPE, OutboxEvent.Status.PENDING.name(), limit);
+    }
+
+    /**
+     * Adds the totals to the day's rows: one batched UPDATE, then one batched INSERT for the keys that had no row yet.
+     * Key columns are matched with {@code IS NOT DISTINCT FROM} so a null category is a key of its own. Callers are
+     * serialized by the outbox dispatcher, so no other writer can insert the same key in between.
+     */
+    private <K> void add(String table, List<String> keyColumns, LocalDate day, Map<K, SalesTotals> totals,
+                         Function<K, Object[]> keyValues) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        Date saleDate = Date.valueOf(day);
+        List<Object[]> updates = new ArrayList<>(totals.size());
+        List<Object[]> inserts = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> {
+            List<Object> keyValue = Arrays.asList(keyValues.apply(key));
+            List<Object> update = new ArrayList<>(List.of(total.units, total.revenue, saleDate));
+            update.addAll(keyValue);
+            updates.add(update.toArray());
+            List<Object> insert = new ArrayList<>(List.of(saleDate));
+            insert.addAll(keyValue);
+            insert.addAll(List.of(total.units, total.revenue));
+            inserts.add(insert.toArray());
+        });
+        String keyMatch = keyColumns.stream().map(column -> " AND " + column + " IS NOT DISTINCT FROM ?")
+                .collect(Collectors.joining());
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE " + table + " SET units = units + ?, revenue = revenue + ? " +
+                "WHERE sale_date = ?" + keyMatch, updates);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(inserts.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (sale_date, " + String.join(", ", keyColumns) +
+                    ", units, revenue) VALUES (?, ?, ?" + ", ?".repeat(keyColumns.size()) + ")", missing);
+        }
+    }
+}
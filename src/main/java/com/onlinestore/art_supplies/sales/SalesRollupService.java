@@ -0,0 +1,164 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.dto.DailySalesResponse;
+import com.onlinestore.art_supplies.dto.TopSellerResponse;
+import com.onlinestore.art_supplies.order.OrderPlacedEvent;
+import com.onlinestore.art_supplies.outbox.OutboxDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily sales rollups per product and per category. Placed orders are added as their order.placed events are
+ * dispatched from the outbox; {@link #rebuild()} recomputes everything from the order tables in keyset-ordered chunks,
+ * leaving out orders whose event is still pending so that each order is counted exactly once.
+ * Reports read only the rollups, so their cost depends on the date range and catalog size, not on order volume.
+ */
+@Slf4j
+@Service
+public class SalesRollupService {
+    public static final int MAX_REPORT_DAYS = 366;
+    public static final int MAX_TOP_SELLERS = 100;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupStateRepository stateRepository;
+    private final DailyProductSalesRepository productSalesRepository;
+    private final DailyCategorySalesRepository categorySalesRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository, SalesRollupStateRepository stateRepository,
+                              DailyProductSalesRepository productSalesRepository,
+                              DailyCategorySalesRepository categorySalesRepository, OutboxDispatcher outboxDispatcher,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sales.rollup.backfill-chunk-size:1000}") int chunkSize) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.stateRepository = stateRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.categorySalesRepository = categorySalesRepository;
+        this.outboxDispatcher = outboxDispatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds a placed order to its day's rollups. Runs in the outbox dispatcher's transaction, so the rollups change
+     * exactly when the event is marked processed.
+     */
+    @Transactional
+    public void recordOrder(OrderPlacedEvent event) {
+        Map<SalesRollupRepository.ProductKey, SalesTotals> byProduct = new HashMap<>();
+        Map<Long, SalesTotals> byCategory = new HashMap<>();
+        for (OrderPlacedEvent.Item item : event.items()) {
+            byProduct.computeIfAbsent(new SalesRollupRepository.ProductKey(item.productId(), item.categoryId()),
+                    key -> new SalesTotals()).add(item.quantity(), item.price());
+            if (item.categoryId() != null) {
+                byCategory.computeIfAbsent(item.categoryId(), id -> new SalesTotals()).add(item.quantity(), item.price());
+            }
+        }
+        LocalDate day = event.orderDate().toLocalDate();
+        salesRollupRepository.addProductSales(day, byProduct);
+        salesRollupRepository.addCategorySales(day, byCategory);
+    }
+
+    /**
+     * Recomputes the rollups from the order tables and returns the number of order lines read. Runs while the outbox
+     * dispatcher is paused, so no event changes state meanwhile: orders whose order.placed event was already handled
+     * (or never written) are backfilled chunk by chunk in order item id order, and orders whose event is pending,
+     * including those that commit during the backfill, are left to their events. Reports show partial totals until it
+     * finishes.
+     */
+    public long rebuild() {
+        return outboxDispatcher.runExclusive(() -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                salesRollupRepository.deleteAll();
+                stateRepository.save(new SalesRollupState(SalesRollupState.ID, LocalDateTime.now()));
+            });
+            long lines = 0;
+            long afterItemId = 0;
+            List<SalesRollupRepository.OrderLine> chunk;
+            do {
+                long after = afterItemId;
+                chunk = transactionTemplate.execute(status -> {
+                    List<SalesRollupRepository.OrderLine> orderLines =
+                            salesRollupRepository.findOrderLines(after, chunkSize);
+                    addChunk(orderLines);
+                    return orderLines;
+                });
+                if (!chunk.isEmpty()) {
+                    afterItemId = chunk.get(chunk.size() - 1).itemId();
+                    lines += chunk.size();
+                }
+            } while (chunk.size() == chunkSize);
+            log.info("Rebuilt sales rollups from {} order lines", lines);
+            return lines;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (!stateRepository.existsById(SalesRollupState.ID)) {
+            rebuild();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesResponse> getRevenueByDay(LocalDate from, LocalDate to, Long categoryId) {
+        checkRange(from, to);
+        return categoryId == null
+                ? productSalesRepository.findDailyTotals(from, to)
+                : categorySalesRepository.findDailyTotals(categoryId, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TopSellerResponse> getTopSellers(LocalDate from, LocalDate to, Long categoryId, int limit) {
+        checkRange(from, to);
+        if (limit < 1 || limit > MAX_TOP_SELLERS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_TOP_SELLERS);
+        }
+        return productSalesRepository.findTopSellers(from, to, categoryId, PageRequest.of(0, limit));
+    }
+
+    private void addChunk(List<SalesRollupRepository.OrderLine> orderLines) {
+        Map<LocalDate, Map<SalesRollupRepository.ProductKey, SalesTotals>> byProduct = new TreeMap<>();
+        Map<LocalDate, Map<Long, SalesTotals>> byCategory = new TreeMap<>();
+        for (SalesRollupRepository.OrderLine line : orderLines) {
+            LocalDate day = line.orderDate().toLocalDate();
+            if (line.productId() != null) {
+                byProduct.computeIfAbsent(day, d -> new HashMap<>())
+                        .computeIfAbsent(new SalesRollupRepository.ProductKey(line.productId(), line.categoryId()),
+                                key -> new SalesTotals()).add(line.quantity(), line.price());
+            }
+            if (line.categoryId() != null) {
+                byCategory.computeIfAbsent(day, d -> new HashMap<>())
+                        .computeIfAbsent(line.categoryId(), id -> new SalesTotals()).add(line.quantity(), line.price());
+            }
+        }
+        byProduct.forEach(salesRollupRepository::addProductSales);
+        byCategory.forEach(salesRollupRepository::addCategorySales);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_REPORT_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Date range must be ordered and at most " + MAX_REPORT_DAYS + " days long");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.onlinestore.art_supplies.sales;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single row recording when the rollups were last rebuilt; missing until the first backfill has run.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "sales_rollup_state")
+public class SalesRollupState {
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "state_id")
+    private Integer id;
+
+    @Column(name = "rebuilt_at", nullable = false)
+    private LocalDateTime rebuiltAt;
+}
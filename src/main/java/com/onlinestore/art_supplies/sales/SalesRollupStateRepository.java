@@ -0,0 +1,8 @@
+package com.onlinestore.art_supplies.sales;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SalesRollupStateRepository extends JpaRepository<SalesRollupState, Integer> {
+}
@@ -0,0 +1,16 @@
+package com.onlinestore.art_supplies.sales;
+
+import java.math.BigDecimal;
+
+/**
+ * Running units and revenue for one rollup row while an order or a backfill chunk is being aggregated.
+ */
+final class SalesTotals {
+    long units;
+    BigDecimal revenue = BigDecimal.ZERO;
+
+    void add(int quantity, BigDecimal price) {
+        units += quantity;
+        revenue = revenue.add(price.multiply(BigDecimal.valueOf(quantity)));
+    }
+}
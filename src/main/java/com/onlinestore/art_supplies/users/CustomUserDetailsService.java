@@ -1,23 +1,74 @@
 package com.onlinestore.art_supplies.users;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * Resolves usernames to principals through a bounded cache ({@code users.principal-cache}), so authenticating a request
+ * doesn't query {@code users} every time. The cache holds immutable principals without the password hash; login checks
+ * read the user afresh. Entries are dropped once a change to the user commits and otherwise expire after the configured
+ * TTL, which also bounds how long a change made by another instance, or by a bulk update that bypasses the entity
+ * listener, goes unseen.
+ */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> principals;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, MeterRegistry meterRegistry,
+                                    @Value("${users.principal-cache:maximumSize=10000,expireAfterWrite=5m}") String cacheSpec) {
         this.userRepository = userRepository;
+        this.principals = Caffeine.from(cacheSpec).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "userPrincipals");
     }
 
+    /**
+     * The user with its password hash, read from the database, for checking a login.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        return userRepository.findByUsername(username)
+                .map(UserPrincipal::new)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    }
+
+    /**
+     * The cached principal of an already authenticated user, without the password hash.
+     */
+    public UserPrincipal loadPrincipal(String username) {
+        UserPrincipal principal = principals.get(username, name -> userRepository.findByUsername(name)
+                .map(user -> new UserPrincipal(user).withoutPassword())
+                .orElse(null));
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        return principal;
+    }
+
+    /**
+     * Stores a hash made with the current work factor after a login that used an older one.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        UserPrincipal principal = new UserPrincipal(userRepository.save(user));
+        principals.invalidate(principal.getUsername());
+        return principal;
+    }
 
-        return new UserPrincipal(user);
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        principals.invalidate(event.username());
     }
 }
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "users")
 public class User {
     @Id
@@ -0,0 +1,23 @@
+package com.onlinestore.art_supplies.users;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on {@link User} that announces updates and deletes. Hibernate creates it through Spring, so the
+ * publisher is injected.
+ */
+class UserChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    UserChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void userChanged(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+    }
+}
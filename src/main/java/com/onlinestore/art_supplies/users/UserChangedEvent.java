@@ -0,0 +1,7 @@
+package com.onlinestore.art_supplies.users;
+
+/**
+ * A user row was updated or deleted, so anything cached about {@code username} is stale.
+ */
+public record UserChangedEvent(String username) {
+}
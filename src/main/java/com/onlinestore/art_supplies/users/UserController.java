@@ -31,7 +31,8 @@ public class UserController {
             ),
             responses = {
                     @ApiResponse(responseCode = "201", description = "User registered"),
-                    @ApiResponse(responseCode = "400", description = "Invalid input")
+                    @ApiResponse(responseCode = "400", description = "Invalid input"),
+                    @ApiResponse(responseCode = "429", description = "Too many logins and registrations at the moment")
             })
     public ResponseEntity<User> register(@RequestBody @Valid User user) {
         return new ResponseEntity<>(userService.register(user), HttpStatus.CREATED);
@@ -41,7 +42,8 @@ public class UserController {
     @Operation(summary = "Login",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Login successful"),
-                    @ApiResponse(responseCode = "401", description = "Invalid username or password")
+                    @ApiResponse(responseCode = "401", description = "Invalid username or password"),
+                    @ApiResponse(responseCode = "429", description = "Too many logins at the moment")
             })
     public ResponseEntity<String> login(@RequestBody LoginRequest loginRequest) {
         String token = userService.verify(loginRequest);
@@ -7,16 +7,57 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.Collections;
 
-public class UserPrincipal implements UserDetails {
-    private User user;
+/**
+ * Immutable copy of the user fields authentication needs, taken when the user was loaded. Only principals loaded to
+ * check a login carry the password hash; cached ones leave it out.
+ */
+public final class UserPrincipal implements UserDetails {
+    private final Long userId;
+    private final String username;
+    private final String password;
+    private final boolean admin;
 
     public UserPrincipal(User user) {
-        this.user = user;
+        this(user.getUserId(), user.getUsername(), user.getPassword(), Boolean.TRUE.equals(user.getIsAdmin()));
+    }
+
+    private UserPrincipal(Long userId, String username, String password, boolean admin) {
+        this.userId = userId;
+        this.username = username;
+        this.password = password;
+        this.admin = admin;
+    }
+
+    /**
+     * The same principal without the password hash.
+     */
+    public UserPrincipal withoutPassword() {
+        return new UserPrincipal(userId, username, null, admin);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    /**
+     * A new, unmanaged user holding the principal's id, username and admin flag; changing it affects nothing else.
+     * Entities that should point at the user take {@code userRepository.getReferenceById(userId)} instead.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        user.setIsAdmin(admin);
+        return user;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        if (user.getIsAdmin()) {
+        if (admin) {
             return Collections.singleton(new SimpleGrantedAuthority("ROLE_ADMIN"));
         } else {
             return Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"));
@@ -25,12 +66,12 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -3,6 +3,8 @@ package com.onlinestore.art_supplies.users;
 import com.onlinestore.art_supplies.config.security.CustomAuthenticationFilter;
 import com.onlinestore.art_supplies.config.security.JwtUtils;
 import com.onlinestore.art_supplies.dto.LoginRequest;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -25,6 +28,7 @@ public class UserService {
     private final AuthenticationManager authManager;
     private final JwtUtils jwtUtils;
     private final CustomAuthenticationFilter customAuthenticationFilter;
+    private final CustomUserDetailsService customUserDetailsService;
 
     public User register(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
@@ -53,13 +57,28 @@ public class UserService {
         return "fails";
     }
 
+    /**
+     * The user of the request's token, as a new unmanaged copy of its principal (see {@link UserPrincipal#toUser()}).
+     * Normally the principal is the one the authentication filter already put in the security context, so no query is
+     * needed; otherwise it comes from the principal cache. Null without a token, or when the token is tampered with or
+     * expired, so public pages treat the visitor as anonymous.
+     */
     public User getAuthenticatedUser(HttpServletRequest request) {
-        String token = customAuthenticationFilter.extractTokenFromCookie(request);
-        if (token == null || token.isBlank()) {
+        Claims claims;
+        try {
+            claims = customAuthenticationFilter.getVerifiedClaims(request);
+        } catch (JwtException e) {
+            log.debug("Ignoring invalid token: {}", e.getMessage());
+            return null;
+        }
+        if (claims == null) {
             return null;
         }
-        String username = jwtUtils.getClaim(token, "sub", String.class);
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                && principal.getUsername().equals(claims.getSubject())) {
+            return principal.toUser();
+        }
+        return customUserDetailsService.loadPrincipal(claims.getSubject()).toUser();
     }
 }
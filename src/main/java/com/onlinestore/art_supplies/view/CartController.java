@@ -4,6 +4,7 @@ import com.onlinestore.art_supplies.order.cart.CartService;
 import com.onlinestore.art_supplies.users.User;
 import com.onlinestore.art_supplies.users.UserService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.UUID;
+
 @Controller
 @RequestMapping("/cart")
 public class CartController {
@@ -25,40 +28,57 @@ public class CartController {
     @GetMapping
     public String viewCart(Model model, HttpServletRequest request) {
         User user = userService.getAuthenticatedUser(request);
-        model.addAttribute("cartItems", cartService.getCartItems(user));
+        model.addAttribute("cartItems", user == null ? cartService.getAnonymousCartItems(request) : cartService.getCartItems(user));
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "cart";
     }
 
     @PostMapping("/add")
     public String addToCart(@RequestParam Long productId,
                             @RequestParam(defaultValue = "1") int quantity,
-                            HttpServletRequest request) {
+                            HttpServletRequest request, HttpServletResponse response) {
         User user = userService.getAuthenticatedUser(request);
-        cartService.addProductToCart(user, productId, quantity);
+        if (user == null) {
+            cartService.addProductToAnonymousCart(request, response, productId, quantity);
+        } else {
+            cartService.addProductToCart(user, productId, quantity);
+        }
         return "redirect:/cart";
     }
 
     @PostMapping("/update")
     public String updateQuantity(@RequestParam Long productId,
                                  @RequestParam int quantity,
-                                 HttpServletRequest request) {
+                                 HttpServletRequest request, HttpServletResponse response) {
         User user = userService.getAuthenticatedUser(request);
-        cartService.updateCartItemQuantity(user, productId, quantity);
+        if (user == null) {
+            cartService.updateAnonymousCartItemQuantity(request, response, productId, quantity);
+        } else {
+            cartService.updateCartItemQuantity(user, productId, quantity);
+        }
         return "redirect:/cart";
     }
 
     @PostMapping("/remove")
     public String removeItem(@RequestParam Long productId,
-                             HttpServletRequest request) {
+                             HttpServletRequest request, HttpServletResponse response) {
         User user = userService.getAuthenticatedUser(request);
-        cartService.removeProductFromCart(user, productId);
+        if (user == null) {
+            cartService.removeProductFromAnonymousCart(request, response, productId);
+        } else {
+            cartService.removeProductFromCart(user, productId);
+        }
         return "redirect:/cart";
     }
 
     @PostMapping("/clear")
-    public String clearCart(HttpServletRequest request) {
+    public String clearCart(HttpServletRequest request, HttpServletResponse response) {
         User user = userService.getAuthenticatedUser(request);
-        cartService.clearCart(user);
+        if (user == null) {
+            cartService.clearAnonymousCart(response);
+        } else {
+            cartService.clearCart(user);
+        }
         return "redirect:/cart";
     }
 }
@@ -1,9 +1,12 @@
 package com.onlinestore.art_supplies.view;
 
+import com.onlinestore.art_supplies.config.security.PasswordHashingBusyException;
 import com.onlinestore.art_supplies.dto.LoginRequest;
+import com.onlinestore.art_supplies.order.cart.CartService;
 import com.onlinestore.art_supplies.users.User;
 import com.onlinestore.art_supplies.users.UserService;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,9 +19,11 @@ import org.springframework.web.server.ResponseStatusException;
 @Controller
 public class LoginRegisterViewController {
     private final UserService userService;
+    private final CartService cartService;
 
-    public LoginRegisterViewController(UserService userService) {
+    public LoginRegisterViewController(UserService userService, CartService cartService) {
         this.userService = userService;
+        this.cartService = cartService;
     }
 
     @GetMapping("/login")
@@ -28,7 +33,8 @@ public class LoginRegisterViewController {
     }
 
     @PostMapping("/login")
-    public String loginPage(@ModelAttribute LoginRequest loginRequest, HttpServletResponse response) {
+    public String loginPage(@ModelAttribute LoginRequest loginRequest, HttpServletRequest request,
+                            HttpServletResponse response) {
         String jwt = userService.verify(loginRequest);
 
         if (jwt.equals("fails")) {
@@ -40,6 +46,7 @@ public class LoginRegisterViewController {
         cookie.setPath("/");
         cookie.setMaxAge(60 * 60); // 1 hour
         response.addCookie(cookie);
+        cartService.mergeAnonymousCart(loginRequest.getUsername(), request, response);
         return "redirect:/";
     }
 
@@ -53,6 +60,8 @@ public class LoginRegisterViewController {
     public String registerPage(@ModelAttribute User user, Model model) {
         try {
             userService.register(user);
+        } catch (PasswordHashingBusyException ex) {
+            throw ex;
         } catch (ResponseStatusException ex) {
             model.addAttribute("user", user);
             model.addAttribute("registerError", ex.getReason());
@@ -1,19 +1,22 @@
 package com.onlinestore.art_supplies.view;
 
+import com.onlinestore.art_supplies.config.concurrency.ConcurrencyLimited;
 import com.onlinestore.art_supplies.order.Order;
 import com.onlinestore.art_supplies.order.OrderService;
 import com.onlinestore.art_supplies.order.cart.CartService;
 import com.onlinestore.art_supplies.users.UserService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/orders")
@@ -29,24 +32,27 @@ public class OrderViewController {
     }
 
     @PostMapping("/place-order")
-    public String placeOrder(HttpServletRequest request, Model model) {
+    @ConcurrencyLimited("checkout")
+    public String placeOrder(@RequestParam(required = false) String idempotencyKey,
+                             @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKeyHeader,
+                             HttpServletRequest request, Model model) {
         try {
-            orderService.placeOrder(request);
+            orderService.placeOrder(request, idempotencyKey != null ? idempotencyKey : idempotencyKeyHeader);
             model.addAttribute("successMessage", "Order placed successfully!");
-            model.addAttribute("cartItems", cartService.getCartItems(userService.getAuthenticatedUser(request)));
-            return "cart";
         } catch (ResponseStatusException e) {
             model.addAttribute("errorMessage", e.getReason());
-            model.addAttribute("cartItems", cartService.getCartItems(userService.getAuthenticatedUser(request)));
-            return "cart";
         }
+        model.addAttribute("cartItems", cartService.getCartItems(userService.getAuthenticatedUser(request)));
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
+        return "cart";
     }
 
     @GetMapping
-    public String viewOrders(HttpServletRequest request, Model model) {
-        List<Order> orders = orderService.getOrderHistory(request);
-        orders.sort(Comparator.comparing(Order::getOrderDate).reversed());
-        model.addAttribute("orders", orders);
+    public String viewOrders(@RequestParam(defaultValue = "0") int page, HttpServletRequest request, Model model) {
+        Page<Order> orders = orderService.getOrderHistory(request, page, OrderService.ORDERS_PER_PAGE);
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("currentPage", page);
+        model.addAttribute("totalPages", orders.getTotalPages());
         return "order-history";
     }
 }
\ No newline at end of file
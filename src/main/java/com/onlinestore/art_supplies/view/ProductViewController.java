@@ -2,13 +2,13 @@ package com.onlinestore.art_supplies.view;
 
 import com.onlinestore.art_supplies.category.Category;
 import com.onlinestore.art_supplies.category.CategoryService;
+import com.onlinestore.art_supplies.dto.CursorPage;
+import com.onlinestore.art_supplies.dto.ProductDetailsView;
+import com.onlinestore.art_supplies.dto.ProductResponse;
 import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductDetailsService;
 import com.onlinestore.art_supplies.products.ProductService;
 import com.onlinestore.art_supplies.ratings.RatingService;
-import com.onlinestore.art_supplies.reviews.Review;
-import com.onlinestore.art_supplies.reviews.ReviewService;
-import com.onlinestore.art_supplies.users.User;
-import com.onlinestore.art_supplies.users.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Controller;
@@ -18,37 +18,46 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Controller
 public class ProductViewController {
     private final ProductService productService;
-    private final RatingService ratingService;
-    private final ReviewService reviewService;
+    private final ProductDetailsService productDetailsService;
     private final CategoryService categoryService;
-    private final UserService userService;
+    private final RatingService ratingService;
 
-    public ProductViewController(ProductService productService, RatingService ratingService, ReviewService reviewService, CategoryService categoryService, UserService userService) {
+    public ProductViewController(ProductService productService, ProductDetailsService productDetailsService, CategoryService categoryService, RatingService ratingService) {
         this.productService = productService;
-        this.ratingService = ratingService;
-        this.reviewService = reviewService;
+        this.productDetailsService = productDetailsService;
         this.categoryService = categoryService;
-        this.userService = userService;
+        this.ratingService = ratingService;
     }
 
     @GetMapping("/products/show")
     public String showAllProducts(@RequestParam(required = false) String keyword,
                                   @RequestParam(required = false) String categoryName,
-                                  @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+                                  @RequestParam(value = "page", required = false) Integer page,
+                                  @RequestParam(value = "after", required = false) String after,
                                   Model model) {
-        Page<Product> productPage = productService.getFilteredProducts(page, keyword, categoryName);
+        if (page != null) {
+            Page<Product> productPage = productService.getFilteredProducts(page, keyword, categoryName);
+            model.addAttribute("products", productPage.getContent());
+            model.addAttribute("ratings", ratingService.getRatingSummaries(
+                    productPage.getContent().stream().map(Product::getProductId).toList()));
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", productPage.getTotalPages());
+        } else {
+            CursorPage<ProductResponse> productPage = productService.getFilteredProductsAfter(after,
+                    ProductService.PRODUCTS_PER_PAGE, keyword, categoryName, false);
+            model.addAttribute("products", productPage.content());
+            model.addAttribute("ratings", ratingService.getRatingSummaries(
+                    productPage.content().stream().map(ProductResponse::productId).toList()));
+            model.addAttribute("after", after);
+            model.addAttribute("nextCursor", productPage.nextCursor());
+        }
         List<Category> categories = categoryService.getAllCategories();
 
-        model.addAttribute("products", productPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", productPage.getTotalPages());
         model.addAttribute("categories", categories);
         model.addAttribute("keyword", keyword);
         model.addAttribute("selectedCategory", categoryName);
@@ -58,45 +67,33 @@ public class ProductViewController {
 
     @GetMapping("/products/show/{productId}")
     public String showProductDetails(@PathVariable Long productId, @RequestParam(required = false) Long editingReviewId, Model model, HttpServletRequest request) {
-        Product product = productService.getProductById(productId);
-        User user = userService.getAuthenticatedUser(request);
-        Double averageRating = ratingService.getAverageRating(productId);
+        ProductDetailsView details = productDetailsService.getProductDetails(productId, request);
 
-        List<Review> reviews = reviewService.getReviewsByProductId(productId);
-        Map<Long, Boolean> canEditMap = new HashMap<>();
-        Map<Long, Boolean> canDeleteMap = new HashMap<>();
-
-        for (Review review : reviews) {
-            boolean canEdit = (user != null) && reviewService.canUserEditReview(user, review.getReviewId());
-            boolean isAdmin = user != null && user.getIsAdmin();
-            canEditMap.put(review.getReviewId(), canEdit);
-            canDeleteMap.put(review.getReviewId(), canEdit || isAdmin);
-        }
-
-        boolean canReview = user != null && reviewService.canUserReviewProduct(user, productId);
-        boolean canRate = user != null && ratingService.canUserRateProduct(user, productId);
-
-        model.addAttribute("product", product);
-        model.addAttribute("reviews", reviews);
-        model.addAttribute("canReview", canReview);
-        model.addAttribute("averageRating", averageRating);
-        model.addAttribute("canRate", canRate);
-        model.addAttribute("canEditMap", canEditMap);
+        model.addAttribute("product", details.product());
+        model.addAttribute("reviews", details.reviews());
+        model.addAttribute("canReview", details.canReview());
+        model.addAttribute("averageRating", details.averageRating());
+        model.addAttribute("canRate", details.canRate());
+        model.addAttribute("canEditMap", details.canEditMap());
         model.addAttribute("editingReviewId", editingReviewId);
-        model.addAttribute("canDeleteMap", canDeleteMap);
+        model.addAttribute("canDeleteMap", details.canDeleteMap());
         return "product-details";
     }
 
+    /**
+     * One keyset page of the category's products, or of all products for {@code all}; pass {@code nextCursor} as
+     * {@code after} for the following page.
+     */
     @GetMapping("/products/show/filter")
-    public @ResponseBody List<Product> filterProducts(@RequestParam("categoryName") String categoryName) {
-        if ("all".equalsIgnoreCase(categoryName)) {
-            return productService.getAllProducts();
-        }
-        return productService.getProductsByCategoryName(categoryName);
+    public @ResponseBody CursorPage<ProductResponse> filterProducts(@RequestParam("categoryName") String categoryName,
+                                                                    @RequestParam(value = "after", required = false) String after,
+                                                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        String categoryFilter = "all".equalsIgnoreCase(categoryName) ? null : categoryName;
+        return productService.getFilteredProductsAfter(after, size, null, categoryFilter, false);
     }
 
     @GetMapping("/products/show/search")
-    public @ResponseBody List<Product> searchProducts(@RequestParam("keyword") String keyword) {
+    public @ResponseBody List<ProductResponse> searchProducts(@RequestParam("keyword") String keyword) {
         return productService.searchProducts(keyword);
     }
 }
@@ -39,11 +39,12 @@ CREATE TABLE if not exists orders
 
 CREATE TABLE if not exists order_items
 (
-    id         SERIAL PRIMARY KEY,
-    order_id   INT REFERENCES orders (order_id) ON DELETE CASCADE,
-    product_id INT REFERENCES products (product_id),
-    quantity   INT            NOT NULL,
-    price      DECIMAL(10, 2) NOT NULL
+    id          SERIAL PRIMARY KEY,
+    order_id    INT REFERENCES orders (order_id) ON DELETE CASCADE,
+    product_id  INT REFERENCES products (product_id),
+    category_id INT,
+    quantity    INT            NOT NULL,
+    price       DECIMAL(10, 2) NOT NULL
 );
 
 -- CREATE TABLE cart_items
@@ -62,6 +63,69 @@ CREATE TABLE if not exists ratings
     rating     INT CHECK (rating BETWEEN 1 AND 5) NOT NULL
 );
 
+CREATE TABLE if not exists product_rating_stats
+(
+    product_id   INT PRIMARY KEY,
+    rating_count BIGINT NOT NULL DEFAULT 0,
+    rating_sum   BIGINT NOT NULL DEFAULT 0,
+    one_star     BIGINT NOT NULL DEFAULT 0,
+    two_stars    BIGINT NOT NULL DEFAULT 0,
+    three_stars  BIGINT NOT NULL DEFAULT 0,
+    four_stars   BIGINT NOT NULL DEFAULT 0,
+    five_stars   BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE if not exists checkout_keys
+(
+    user_id         INT         NOT NULL,
+    idempotency_key VARCHAR(64) NOT NULL,
+    order_id        INT         NOT NULL,
+    created_at      TIMESTAMP   NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE TABLE if not exists outbox_events
+(
+    event_id        SERIAL PRIMARY KEY,
+    event_type      VARCHAR(100) NOT NULL,
+    aggregate_id    INT,
+    payload         TEXT         NOT NULL,
+    status          VARCHAR(20)  NOT NULL,
+    attempts        INT          NOT NULL DEFAULT 0,
+    created_at      TIMESTAMP    NOT NULL,
+    next_attempt_at TIMESTAMP    NOT NULL,
+    processed_at    TIMESTAMP,
+    last_error      VARCHAR(1000)
+);
+
+CREATE INDEX if not exists idx_outbox_events_due ON outbox_events (status, next_attempt_at);
+
+CREATE TABLE if not exists daily_product_sales
+(
+    id          BIGSERIAL PRIMARY KEY,
+    sale_date   DATE           NOT NULL,
+    product_id  INT            NOT NULL,
+    category_id INT,
+    units       BIGINT         NOT NULL,
+    revenue     DECIMAL(14, 2) NOT NULL,
+    UNIQUE (sale_date, product_id, category_id)
+);
+
+CREATE TABLE if not exists daily_category_sales
+(
+    sale_date   DATE           NOT NULL,
+    category_id INT            NOT NULL,
+    units       BIGINT         NOT NULL,
+    revenue     DECIMAL(14, 2) NOT NULL,
+    PRIMARY KEY (sale_date, category_id)
+);
+
+CREATE TABLE if not exists sales_rollup_state
+(
+    state_id   INT PRIMARY KEY,
+    rebuilt_at TIMESTAMP NOT NULL
+);
+
 -- Create the reviews table
 CREATE TABLE if not exists reviews
 (
@@ -1,5 +1,6 @@
 package com.onlinestore.art_supplies.category;
 
+import com.onlinestore.art_supplies.products.ProductSearchIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,6 +22,9 @@ class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
     @InjectMocks
     CategoryService categoryService;
 
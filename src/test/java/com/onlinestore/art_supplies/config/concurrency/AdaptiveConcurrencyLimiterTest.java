@@ -0,0 +1,50 @@
+package com.onlinestore.art_supplies.config.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 0.5, 2.0, 100);
+
+    @Test
+    public void shouldRejectOverTheLimit() {
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(1_000, false);
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void shouldGrowWhileLatencyHoldsAndShrinkWhenItDoesNot() {
+        for (int i = 0; i < 5; i++) {
+            fillAndRelease(1_000, false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        fillAndRelease(10_000, false);
+        assertEquals(1, limiter.getLimit());
+
+        fillAndRelease(1_000, false);
+        assertEquals(2, limiter.getLimit());
+
+        fillAndRelease(1_000, true);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    private void fillAndRelease(long latencyNanos, boolean failed) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(latencyNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.onlinestore.art_supplies.config.security;
+
+import com.onlinestore.art_supplies.users.CustomUserDetailsService;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserPrincipal;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomAuthenticationFilterTest {
+
+    JwtUtils jwtUtils = new JwtUtils();
+    CustomUserDetailsService customUserDetailsService = mock(CustomUserDetailsService.class);
+    CustomAuthenticationFilter filter = new CustomAuthenticationFilter(jwtUtils, customUserDetailsService);
+
+    User user = new User(1L, "ana", "secret", "Ana", "ana@example.com", "0700000000", false);
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void shouldLoadTheUserOnlyWhenTheContextIsRead() throws Exception {
+        when(customUserDetailsService.loadPrincipal("ana")).thenReturn(new UserPrincipal(user).withoutPassword());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("Authorization", jwtUtils.generateToken(user)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verifyNoInteractions(customUserDetailsService);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        assertEquals("ana", authentication.getName());
+        assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+        verify(customUserDetailsService, times(1)).loadPrincipal("ana");
+    }
+
+    @Test
+    public void shouldLeaveTheContextEmptyForABadToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("Authorization", "not-a-token"));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+    }
+}
@@ -0,0 +1,36 @@
+package com.onlinestore.art_supplies.config.security;
+
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    JwtUtils jwtUtils = new JwtUtils();
+
+    User user = new User(1L, "ana", "secret", "Ana", "ana@example.com", "0700000000", false);
+
+    @Test
+    public void shouldVerifyEachTokenOnce() {
+        String token = jwtUtils.generateToken(user);
+
+        Claims claims = jwtUtils.verify(token);
+
+        assertEquals("ana", claims.getSubject());
+        assertSame(claims, jwtUtils.verify(token));
+        assertEquals("ana", jwtUtils.getClaim(token, "sub", String.class));
+        assertTrue(jwtUtils.validateToken(token, new UserPrincipal(user)));
+    }
+
+    @Test
+    public void shouldRejectTamperedTokens() {
+        String token = jwtUtils.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtils.verify(tampered));
+    }
+}
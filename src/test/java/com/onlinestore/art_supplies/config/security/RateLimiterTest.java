@@ -0,0 +1,73 @@
+package com.onlinestore.art_supplies.config.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    AtomicLong now = new AtomicLong(1_000_000_000L);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RateLimiter rateLimiter = new RateLimiter(meterRegistry, "/products/search/**=2/1s, /products/all/**=50/1m",
+            "maximumSize=1000", now::get);
+
+    @Test
+    public void shouldRejectOnceTheBucketIsEmptyAndRefillOverTime() {
+        assertTrue(acquire("/products/search", "ana").allowed());
+        TokenBucket.Probe second = acquire("/products/search/page", "ana");
+        TokenBucket.Probe third = acquire("/products/search", "ana");
+
+        assertTrue(second.allowed());
+        assertEquals(0, second.remaining());
+        assertFalse(third.allowed());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), third.retryAfterNanos());
+        assertEquals(1, meterRegistry.get("ratelimit.rejected").tag("route", "/products/search/**").counter().count());
+        assertTrue(acquire("/products/search", "bob").allowed());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertTrue(acquire("/products/search", "ana").allowed());
+        assertFalse(acquire("/products/search", "ana").allowed());
+    }
+
+    @Test
+    public void shouldNotLimitOtherRoutes() {
+        assertNull(acquire("/products/show/1", "ana"));
+    }
+
+    @Test
+    public void shouldHandOutExactlyTheCapacityUnderContention() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger allowed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    if (acquire("/products/all", "ana").allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(50, allowed.get());
+    }
+
+    private TokenBucket.Probe acquire(String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return rateLimiter.tryAcquire(request, () -> "user:" + client);
+    }
+}
@@ -0,0 +1,233 @@
+package com.onlinestore.art_supplies.order;
+
+import com.onlinestore.art_supplies.category.Category;
+import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.config.security.JwtUtils;
+import com.onlinestore.art_supplies.order.cart.CartService;
+import com.onlinestore.art_supplies.products.InsufficientStockException;
+import com.onlinestore.art_supplies.products.InventoryLedger;
+import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent checkout load test. N simulated users fill their carts through {@link CartService} and call
+ * {@link OrderService#placeOrder} against a seeded H2 catalog with deliberately scarce stock, then the run reports
+ * throughput, latency percentiles, lock failures and checks that no stock was oversold.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; tune with {@code -Dbenchmark.users}, {@code -Dbenchmark.ordersPerUser},
+ * {@code -Dbenchmark.products}, {@code -Dbenchmark.stock} and {@code -Dbenchmark.maxRetries}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+class CheckoutBenchmarkTest {
+    private static final int USERS = Integer.getInteger("benchmark.users", 16);
+    private static final int ORDERS_PER_USER = Integer.getInteger("benchmark.ordersPerUser", 25);
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 20);
+    private static final int STOCK = Integer.getInteger("benchmark.stock", 50);
+    private static final int MAX_RETRIES = Integer.getInteger("benchmark.maxRetries", 3);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger placed = new AtomicInteger();
+    private final AtomicInteger outOfStock = new AtomicInteger();
+    private final AtomicInteger lockFailures = new AtomicInteger();
+    private final AtomicInteger deadlocks = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+
+    @Test
+    public void concurrentCheckoutsShouldNeverOversell() throws Exception {
+        String runId = Long.toString(System.nanoTime(), 36);
+        List<Long> productIds = seedProducts(runId);
+        List<User> users = seedUsers(runId);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (User user : users) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return runUser(user, productIds, transactionTemplate);
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        List<Long> latencies = new ArrayList<>();
+        for (Future<long[]> result : results) {
+            for (long latency : result.get()) {
+                latencies.add(latency);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+        inventoryLedger.flush();
+
+        Map<Long, Integer> sold = soldQuantities(productIds);
+        List<Product> products = productRepository.findAllById(productIds);
+        long negativeStock = products.stream().filter(product -> product.getQuantity() < 0).count();
+        long unbalanced = products.stream()
+                .filter(product -> product.getQuantity() + sold.getOrDefault(product.getProductId(), 0) != STOCK)
+                .count();
+
+        Collections.sort(latencies);
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, """
+                        Checkout benchmark: %d users x %d orders, %d products with %d units each
+                          placed orders      %d (%.1f orders/s over %.2f s)
+                          out of stock       %d
+                          latency p50 / p99  %.2f ms / %.2f ms
+                          lock failures      %d (deadlocks %d), retries %d
+                          other errors       %d
+                          negative stock     %d products, stock/sales mismatches %d products
+                        """,
+                USERS, ORDERS_PER_USER, PRODUCTS, STOCK,
+                placed.get(), placed.get() / seconds, seconds,
+                outOfStock.get(),
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                lockFailures.get(), deadlocks.get(), retries.get(),
+                errors.get(),
+                negativeStock, unbalanced);
+
+        assertEquals(0, negativeStock, "Stock went negative");
+        assertEquals(0, unbalanced, "Remaining stock does not match the quantities sold");
+        assertEquals(0, errors.get(), "Unexpected checkout errors");
+        assertTrue(placed.get() > 0, "No order was placed");
+    }
+
+    private long[] runUser(User user, List<Long> productIds, TransactionTemplate transactionTemplate) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("Authorization", jwtUtils.generateToken(user)));
+        Random random = new Random(user.getUserId());
+        long[] latencies = new long[ORDERS_PER_USER];
+        int completed = 0;
+        for (int i = 0; i < ORDERS_PER_USER; i++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    cartService.clearCart(user);
+                    int lines = 1 + random.nextInt(3);
+                    for (int line = 0; line < lines; line++) {
+                        Long productId = productIds.get(random.nextInt(productIds.size()));
+                        cartService.addProductToCart(user, productId, 1 + random.nextInt(2));
+                    }
+                });
+            } catch (InsufficientStockException e) {
+                // with the inventory ledger enabled the cart hold is refused before checkout
+                outOfStock.incrementAndGet();
+                continue;
+            }
+            for (int attempt = 0; ; attempt++) {
+                long startedAt = System.nanoTime();
+                try {
+                    orderService.placeOrder(request);
+                    latencies[completed++] = System.nanoTime() - startedAt;
+                    placed.incrementAndGet();
+                    break;
+                } catch (InsufficientStockException e) {
+                    outOfStock.incrementAndGet();
+                    break;
+                } catch (PessimisticLockingFailureException e) {
+                    lockFailures.incrementAndGet();
+                    if (String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT).contains("deadlock")) {
+                        deadlocks.incrementAndGet();
+                    }
+                    if (attempt >= MAX_RETRIES) {
+                        errors.incrementAndGet();
+                        break;
+                    }
+                    retries.incrementAndGet();
+                } catch (RuntimeException e) {
+                    errors.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(latencies, completed);
+    }
+
+    private List<Long> seedProducts(String runId) {
+        Category category = categoryRepository.save(new Category(null, "Benchmark " + runId));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product(null, "Benchmark product " + i, "Seeded for the checkout benchmark",
+                    BigDecimal.valueOf(5 + i), STOCK, category, "http://example.com/benchmark.jpg"));
+        }
+        return productRepository.saveAll(products).stream().map(Product::getProductId).toList();
+    }
+
+    private List<User> seedUsers(String runId) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "bench-" + runId + "-" + i, "not-used", "Benchmark User " + i,
+                    "bench" + i + "-" + runId + "@example.com", "0700000000", false));
+        }
+        return userRepository.saveAll(users);
+    }
+
+    private Map<Long, Integer> soldQuantities(List<Long> productIds) {
+        Set<Long> benchmarkProducts = new HashSet<>(productIds);
+        Map<Long, Integer> sold = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) FROM order_items GROUP BY product_id", row -> {
+            long productId = row.getLong(1);
+            if (benchmarkProducts.contains(productId)) {
+                sold.put(productId, row.getInt(2));
+            }
+        });
+        return sold;
+    }
+
+    private static double percentile(List<Long> sortedLatencies, double percentile) {
+        if (sortedLatencies.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+        return sortedLatencies.get(Math.max(0, Math.min(index, sortedLatencies.size() - 1)));
+    }
+}
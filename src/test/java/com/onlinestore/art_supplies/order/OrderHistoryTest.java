@@ -0,0 +1,192 @@
+package com.onlinestore.art_supplies.order;
+
+import com.onlinestore.art_supplies.category.Category;
+import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.dto.OrderResponse;
+import com.onlinestore.art_supplies.order.orderitem.OrderItem;
+import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import com.onlinestore.art_supplies.users.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// own database, so the user's orders are the only ones the statistics see
+@SpringBootTest(properties = {"outbox.dispatcher.enabled=false", "spring.datasource.url=jdbc:h2:mem:orderhistory",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("h2")
+class OrderHistoryTest {
+    static final LocalDateTime NOON = LocalDateTime.of(2024, 3, 14, 12, 0);
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    UserService userService;
+
+    HttpServletRequest request = new MockHttpServletRequest();
+
+    User user;
+    Product brush;
+    Product paint;
+    List<Long> newestFirst;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(new Category(null, "History " + UUID.randomUUID()));
+        brush = productRepository.save(new Product(null, "Brush", "round brush", BigDecimal.ONE, 100, category,
+                "http://x"));
+        paint = productRepository.save(new Product(null, "Paint", "red paint", BigDecimal.TEN, 100, category,
+                "http://x"));
+        user = userRepository.save(new User(null, "history-" + UUID.randomUUID(), "pw", "H", "h@example.com",
+                "0700000000", false));
+        when(userService.getAuthenticatedUser(any())).thenReturn(user);
+
+        // saved out of date order, and two orders share a date so the id breaks the tie
+        Long second = placeOrder(NOON.minusDays(1));
+        Long oldest = placeOrder(NOON.minusDays(3));
+        Long newest = placeOrder(NOON);
+        Long tiedFirst = placeOrder(NOON.minusDays(2));
+        Long tiedSecond = placeOrder(NOON.minusDays(2));
+        newestFirst = List.of(newest, second, tiedSecond, tiedFirst, oldest);
+    }
+
+    @Test
+    public void shouldPageOrdersNewestFirstWithTheirItemsAndProductsLoaded() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Order> first = orderService.getOrderHistory(request, 0, 2);
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(newestFirst.subList(0, 2), first.map(Order::getOrderId).getContent());
+        assertEquals(5, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        for (Order order : first) {
+            assertTrue(Hibernate.isInitialized(order.getOrderItems()));
+            assertEquals(2, order.getOrderItems().size());
+            order.getOrderItems().forEach(orderItem -> {
+                assertTrue(Hibernate.isInitialized(orderItem.getProduct()));
+                assertTrue(Hibernate.isInitialized(orderItem.getProduct().getCategory()));
+            });
+        }
+        assertEquals(List.of("Brush", "Paint"), first.getContent().get(0).getOrderItems().stream()
+                .map(orderItem -> orderItem.getProduct().getProductName()).sorted().toList());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        assertEquals(newestFirst.subList(2, 4), orderService.getOrderHistory(request, 1, 2)
+                .map(Order::getOrderId).getContent());
+        Page<Order> last = orderService.getOrderHistory(request, 2, 2);
+        assertEquals(newestFirst.subList(4, 5), last.map(Order::getOrderId).getContent());
+        assertTrue(last.isLast());
+        assertTrue(orderService.getOrderHistory(request, 3, 2).isEmpty());
+    }
+
+    @Test
+    public void shouldPageResponsesTheSameWayWithTheirItems() {
+        List<Long> orderIds = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<OrderResponse> responses = orderService.getOrderHistoryResponses(request, page, 2);
+            assertEquals(5, responses.getTotalElements());
+            responses.forEach(order -> {
+                assertEquals(2, order.items().size());
+                assertEquals(0, order.totalAmount().compareTo(new BigDecimal("21.00")));
+            });
+            orderIds.addAll(responses.map(OrderResponse::orderId).getContent());
+        }
+
+        assertEquals(newestFirst, orderIds);
+    }
+
+    @Test
+    public void shouldRejectPagesOutsideTheLimits() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderService.getOrderHistoryResponses(request, 0, OrderService.MAX_ORDERS_PER_PAGE + 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> orderService.getOrderHistory(request, -1, 2));
+    }
+
+    @Test
+    public void shouldServeTheHistoryPageAsJson() throws Exception {
+        mockMvc.perform(get("/order/history").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.totalElements").value(5))
+                .andExpect(jsonPath("$.totalPages").value(3))
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].orderId").value(newestFirst.get(2)))
+                .andExpect(jsonPath("$.content[1].orderId").value(newestFirst.get(3)))
+                .andExpect(jsonPath("$.content[0].items.length()").value(2))
+                .andExpect(jsonPath("$.content[0].items[0].productId").value(brush.getProductId()))
+                .andExpect(jsonPath("$.content[0].items[0].productName").value("Brush"))
+                .andExpect(jsonPath("$.content[0].items[0].orderId").doesNotExist());
+    }
+
+    private Long placeOrder(LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setOrderItems(List.of(orderItem(order, brush, 1), orderItem(order, paint, 2)));
+        order.setTotalAmount(new BigDecimal("21.00"));
+        return orderRepository.save(order).getOrderId();
+    }
+
+    private static OrderItem orderItem(Order order, Product product, int quantity) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(order);
+        orderItem.setProduct(product);
+        orderItem.setCategoryId(product.getCategory().getCategoryId());
+        orderItem.setQuantity(quantity);
+        orderItem.setPrice(product.getPrice());
+        return orderItem;
+    }
+}
@@ -0,0 +1,137 @@
+package com.onlinestore.art_supplies.order;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onlinestore.art_supplies.order.orderitem.OrderItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseHistoryTest {
+
+    @Mock
+    OrderItemRepository orderItemRepository;
+
+    AtomicLong now = new AtomicLong();
+
+    PurchaseHistory purchaseHistory;
+
+    @BeforeEach
+    public void setUp() {
+        purchaseHistory = new PurchaseHistory(orderItemRepository, new SimpleMeterRegistry(), Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .ticker(now::get)
+                .executor(Runnable::run));
+        lenient().when(orderItemRepository.findPurchasedProductIds(10L)).thenReturn(List.of(7L, 3L, 5L));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldLoadTheUsersPurchasesOnceOnFirstUse() {
+        assertTrue(purchaseHistory.hasPurchased(10L, 3L));
+        assertTrue(purchaseHistory.hasPurchased(10L, 7L));
+        assertFalse(purchaseHistory.hasPurchased(10L, 4L));
+
+        verify(orderItemRepository, times(1)).findPurchasedProductIds(10L);
+    }
+
+    @Test
+    public void shouldNotQueryWithoutAUserOrProduct() {
+        assertFalse(purchaseHistory.hasPurchased(null, 3L));
+        assertFalse(purchaseHistory.confirmPurchased(10L, null));
+
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    @Test
+    public void shouldMergeNewProductsInSortedOrder() {
+        long[] purchased = {3L, 5L, 7L};
+
+        assertArrayEquals(new long[]{1L, 3L, 5L, 6L, 7L, 9L},
+                PurchaseHistory.merge(purchased, List.of(9L, 5L, 1L, 6L, 1L)));
+        assertSame(purchased, PurchaseHistory.merge(purchased, List.of(3L, 7L)));
+    }
+
+    @Test
+    public void shouldExtendTheCachedSetOnceTheOrderCommits() {
+        purchaseHistory.hasPurchased(10L, 3L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        purchaseHistory.recordPurchase(10L, List.of(4L));
+        assertFalse(purchaseHistory.hasPurchased(10L, 4L));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertTrue(purchaseHistory.hasPurchased(10L, 4L));
+        verify(orderItemRepository, times(1)).findPurchasedProductIds(10L);
+    }
+
+    @Test
+    public void shouldNotExtendTheCachedSetWhenTheOrderRollsBack() {
+        purchaseHistory.hasPurchased(10L, 3L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        purchaseHistory.recordPurchase(10L, List.of(4L));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertFalse(purchaseHistory.hasPurchased(10L, 4L));
+    }
+
+    @Test
+    public void shouldLeaveUsersThatAreNotCachedToTheirNextLoad() {
+        purchaseHistory.recordPurchase(10L, List.of(4L));
+        when(orderItemRepository.findPurchasedProductIds(10L)).thenReturn(List.of(3L, 4L));
+
+        assertTrue(purchaseHistory.hasPurchased(10L, 4L));
+        verify(orderItemRepository, times(1)).findPurchasedProductIds(10L);
+    }
+
+    @Test
+    public void shouldReloadAfterTheEntryExpires() {
+        purchaseHistory.hasPurchased(10L, 3L);
+        when(orderItemRepository.findPurchasedProductIds(10L)).thenReturn(List.of(3L, 8L));
+
+        now.addAndGet(Duration.ofMinutes(31).toNanos());
+
+        assertTrue(purchaseHistory.hasPurchased(10L, 8L));
+        verify(orderItemRepository, times(2)).findPurchasedProductIds(10L);
+    }
+
+    @Test
+    public void shouldGoBackToTheDatabaseBeforeConfirmingANo() {
+        purchaseHistory.hasPurchased(10L, 3L);
+        when(orderItemRepository.findPurchasedProductIds(10L)).thenReturn(List.of(3L, 8L));
+
+        assertTrue(purchaseHistory.confirmPurchased(10L, 3L));
+        verify(orderItemRepository, times(1)).findPurchasedProductIds(10L);
+        assertTrue(purchaseHistory.confirmPurchased(10L, 8L));
+        verify(orderItemRepository, times(2)).findPurchasedProductIds(10L);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,60 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import com.onlinestore.art_supplies.config.security.JwtUtils;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartCookieTest {
+
+    CartCookie cartCookie = new CartCookie(new JwtUtils());
+
+    @Test
+    public void shouldReadBackWhatItWrote() {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        items.put(7L, 2);
+        items.put(3L, 1);
+
+        Map<Long, Integer> read = cartCookie.read(requestWith(written(items)));
+
+        assertEquals(items, read);
+        assertEquals(List.of(7L, 3L), List.copyOf(read.keySet()));
+    }
+
+    @Test
+    public void shouldIgnoreTamperedCookies() {
+        Cookie cookie = written(Map.of(7L, 2));
+        cookie.setValue(cookie.getValue().replaceFirst("7:2", "7:200"));
+
+        assertTrue(cartCookie.read(requestWith(cookie)).isEmpty());
+        assertTrue(cartCookie.read(requestWith(new Cookie(CartCookie.NAME, "7:2"))).isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveTheCookieForAnEmptyCart() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        cartCookie.write(response, Map.of());
+
+        assertEquals(0, response.getCookie(CartCookie.NAME).getMaxAge());
+    }
+
+    private Cookie written(Map<Long, Integer> items) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cartCookie.write(response, items);
+        return response.getCookie(CartCookie.NAME);
+    }
+
+    private static MockHttpServletRequest requestWith(Cookie cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        return request;
+    }
+}
@@ -0,0 +1,214 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import com.onlinestore.art_supplies.dto.CartOperation;
+import com.onlinestore.art_supplies.dto.CartResponse;
+import com.onlinestore.art_supplies.dto.ProductResponse;
+import com.onlinestore.art_supplies.products.InsufficientStockException;
+import com.onlinestore.art_supplies.products.InventoryLedger;
+import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.products.ProductService;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    CartBatchRepository cartBatchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    CartCookie cartCookie;
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    ProductService productService;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    InventoryLedger inventoryLedger;
+
+    CartStore cartStore;
+
+    CartService cartService;
+
+    User user = new User();
+
+    @BeforeEach
+    public void setUp() {
+        cartStore = new CartStore(cartBatchRepository, new TransactionTemplate(transactionManager), Duration.ofSeconds(1),
+                Duration.ofMinutes(30), System::nanoTime);
+        cartService = new CartService(cartStore, cartCookie, productRepository, productService, userRepository,
+                inventoryLedger);
+        user.setUserId(10L);
+        lenient().when(cartBatchRepository.findItems(10L)).thenReturn(new LinkedHashMap<>(Map.of(1L, 2)));
+        lenient().when(productRepository.findAllById(any())).thenReturn(List.of(product(1L), product(2L)));
+    }
+
+    @Test
+    public void shouldApplyTheOperationsWithOneProductQuery() {
+        CartResponse cart = cartService.applyOperations(user, List.of(
+                new CartOperation(CartOperation.Action.ADD, 1L, 1),
+                new CartOperation(CartOperation.Action.ADD, 2L, 4),
+                new CartOperation(CartOperation.Action.UPDATE, 2L, 3)));
+
+        assertEquals(Map.of(1L, 3, 2L, 3), cartStore.items(10L));
+        assertEquals(2, cart.items().size());
+        verify(productRepository, times(1)).findAllById(any());
+        verify(inventoryLedger).hold(10L, 1L, 3);
+        verify(inventoryLedger).hold(10L, 2L, 3);
+    }
+
+    @Test
+    public void shouldLeaveTheCartAloneWhenAnOperationFails() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                cartService.applyOperations(user, List.of(
+                        new CartOperation(CartOperation.Action.ADD, 1L, 1),
+                        new CartOperation(CartOperation.Action.UPDATE, 2L, 1))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+        verify(inventoryLedger, never()).hold(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldRejectTheBatchWhenAnAddWouldExceedTheQuantityLimit() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                cartService.applyOperations(user, List.of(
+                        new CartOperation(CartOperation.Action.ADD, 2L, 1),
+                        new CartOperation(CartOperation.Action.ADD, 1L, CartOperation.MAX_QUANTITY))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+        verify(inventoryLedger, never()).hold(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldPutBackTheMovedHoldsWhenOneCannotBeTaken() {
+        lenient().doThrow(new InsufficientStockException(List.of(2L), "Not enough stock"))
+                .when(inventoryLedger).hold(10L, 2L, 5);
+
+        assertThrows(InsufficientStockException.class, () -> cartService.applyOperations(user, List.of(
+                new CartOperation(CartOperation.Action.UPDATE, 1L, 4),
+                new CartOperation(CartOperation.Action.ADD, 2L, 5))));
+
+        verify(inventoryLedger).hold(10L, 1L, 4);
+        verify(inventoryLedger).hold(10L, 1L, 2);
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+    }
+
+    @Test
+    public void shouldRejectSingleLineQuantitiesOutsideTheLimit() {
+        for (int quantity : new int[]{0, -1, CartOperation.MAX_QUANTITY + 1}) {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> cartService.addProductToCart(user, 1L, quantity));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        }
+        for (int quantity : new int[]{-1, CartOperation.MAX_QUANTITY + 1}) {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> cartService.updateCartItemQuantity(user, 1L, quantity));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        }
+
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+        verify(inventoryLedger, never()).hold(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldRejectAnAddThatWouldOverflowTheLine() {
+        lenient().when(productService.getProductById(1L)).thenReturn(ProductResponse.from(product(1L)));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> cartService.addProductToCart(user, 1L, CartOperation.MAX_QUANTITY - 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+        verify(inventoryLedger, never()).hold(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldRemoveTheItemWhenItsQuantityIsSetToZero() {
+        cartService.updateCartItemQuantity(user, 1L, 0);
+
+        assertTrue(cartStore.items(10L).isEmpty());
+        verify(inventoryLedger).release(10L, 1L);
+        verify(inventoryLedger, never()).hold(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldCapAnonymousLinesAtTheQuantityLimit() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        HttpServletResponse response = new MockHttpServletResponse();
+        when(cartCookie.read(request)).thenReturn(Map.of(1L, CartOperation.MAX_QUANTITY - 1));
+        when(productService.getProductById(1L)).thenReturn(ProductResponse.from(product(1L)));
+
+        cartService.addProductToAnonymousCart(request, response, 1L, CartOperation.MAX_QUANTITY);
+
+        verify(cartCookie).write(response, Map.of(1L, CartOperation.MAX_QUANTITY));
+    }
+
+    @Test
+    public void shouldRejectAnonymousQuantitiesOutsideTheLimit() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        HttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(ResponseStatusException.class,
+                () -> cartService.addProductToAnonymousCart(request, response, 1L, -5));
+        assertThrows(ResponseStatusException.class,
+                () -> cartService.updateAnonymousCartItemQuantity(request, response, 1L, CartOperation.MAX_QUANTITY + 1));
+        verify(cartCookie, never()).write(any(), any());
+    }
+
+    @Test
+    public void shouldCapMergedLinesAtTheQuantityLimit() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        HttpServletResponse response = new MockHttpServletResponse();
+        when(cartCookie.read(request)).thenReturn(Map.of(1L, CartOperation.MAX_QUANTITY));
+        when(userRepository.findByUsername("ana")).thenReturn(Optional.of(user));
+
+        cartService.mergeAnonymousCart("ana", request, response);
+
+        assertEquals(Map.of(1L, CartOperation.MAX_QUANTITY), cartStore.items(10L));
+        verify(inventoryLedger).hold(10L, 1L, CartOperation.MAX_QUANTITY);
+        verify(cartCookie).clear(response);
+    }
+
+    private static Product product(Long productId) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Product " + productId);
+        product.setPrice(BigDecimal.TEN);
+        return product;
+    }
+}
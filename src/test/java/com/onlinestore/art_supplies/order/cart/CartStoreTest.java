@@ -0,0 +1,143 @@
+package com.onlinestore.art_supplies.order.cart;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartStoreTest {
+
+    @Mock
+    CartBatchRepository cartBatchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    AtomicLong now = new AtomicLong();
+
+    CartStore cartStore;
+
+    @BeforeEach
+    public void setUp() {
+        cartStore = new CartStore(cartBatchRepository, new TransactionTemplate(transactionManager), Duration.ofSeconds(1),
+                Duration.ofMinutes(30), now::get);
+        lenient().when(cartBatchRepository.findItems(10L)).thenReturn(new LinkedHashMap<>(Map.of(1L, 2)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldCoalesceChangesIntoOneWrite() {
+        cartStore.update(10L, items -> items.put(3L, 1));
+        cartStore.update(10L, items -> items.put(3L, 4));
+        cartStore.update(10L, items -> items.remove(1L));
+
+        assertEquals(Map.of(3L, 4), cartStore.items(10L));
+        assertEquals(1, cartStore.flush());
+        verify(cartBatchRepository, times(1)).findItems(10L);
+        verify(cartBatchRepository, times(1)).replaceItems(Map.of(10L, Map.of(3L, 4)));
+
+        assertEquals(0, cartStore.flush());
+    }
+
+    @Test
+    public void shouldLeaveTheCartAloneWhenTheMutationFails() {
+        assertThrows(IllegalArgumentException.class, () -> cartStore.update(10L, items -> {
+            throw new IllegalArgumentException("Item not in cart");
+        }));
+
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+        assertEquals(0, cartStore.flush());
+    }
+
+    @Test
+    public void shouldRetryCartsWhoseWriteFailed() {
+        cartStore.update(10L, items -> items.put(3L, 1));
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(cartBatchRepository).replaceItems(any());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> cartStore.flush());
+        assertEquals(1, cartStore.dirtyCount());
+
+        assertEquals(1, cartStore.flush());
+        verify(cartBatchRepository, times(2)).replaceItems(Map.of(10L, Map.of(1L, 2, 3L, 1)));
+    }
+
+    @Test
+    public void shouldRestoreTheCartWhenTheCheckoutRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cartStore.clear(10L);
+        assertTrue(cartStore.items(10L).isEmpty());
+        verify(cartBatchRepository).deleteItems(10L);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(Map.of(1L, 2), cartStore.items(10L));
+    }
+
+    @Test
+    public void shouldDeleteTheClearedCartAfterAFlushThatSnapshotItBefore() throws Exception {
+        cartStore.update(10L, items -> items.put(3L, 1));
+        List<String> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            while (!cartStore.items(10L).isEmpty()) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+            writes.add("replace");
+            return null;
+        }).when(cartBatchRepository).replaceItems(any());
+        doAnswer(invocation -> writes.add("delete")).when(cartBatchRepository).deleteItems(10L);
+
+        CompletableFuture<Integer> flush = CompletableFuture.supplyAsync(cartStore::flush);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        TransactionSynchronizationManager.initSynchronization();
+        cartStore.clear(10L);
+
+        assertEquals(1, flush.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("replace", "delete"), writes);
+        assertEquals(1, cartStore.dirtyCount());
+    }
+
+    @Test
+    public void shouldDropIdleCartsOnceWritten() {
+        cartStore.update(10L, items -> items.put(3L, 1));
+        now.addAndGet(Duration.ofMinutes(31).toNanos());
+
+        assertEquals(1, cartStore.flush());
+        cartStore.flush();
+        cartStore.items(10L);
+
+        verify(cartBatchRepository, times(2)).findItems(10L);
+    }
+}
@@ -0,0 +1,99 @@
+package com.onlinestore.art_supplies.order.idempotency;
+
+import com.onlinestore.art_supplies.order.Order;
+import com.onlinestore.art_supplies.order.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutIdempotencyTest {
+
+    @Mock
+    CheckoutKeyRepository checkoutKeyRepository;
+
+    @Mock
+    OrderRepository orderRepository;
+
+    CheckoutIdempotency checkoutIdempotency;
+
+    @BeforeEach
+    public void setUp() {
+        checkoutIdempotency = new CheckoutIdempotency(checkoutKeyRepository, orderRepository,
+                "maximumSize=100,expireAfterWrite=10m", Duration.ofHours(24));
+    }
+
+    @Test
+    public void shouldRunTheCheckoutOnceAndAnswerRetriesFromMemory() {
+        Order order = order(7L);
+        when(checkoutKeyRepository.findOrderId(1L, "key")).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsByOrderId(7L)).thenReturn(Optional.of(order));
+        AtomicInteger executions = new AtomicInteger();
+
+        Order first = checkoutIdempotency.execute(1L, "key", () -> {
+            executions.incrementAndGet();
+            return order;
+        });
+        Order retry = checkoutIdempotency.execute(1L, "key", () -> fail("Checkout ran twice"));
+
+        assertSame(order, first);
+        assertSame(order, retry);
+        assertEquals(1, executions.get());
+        verify(checkoutKeyRepository, times(1)).findOrderId(1L, "key");
+    }
+
+    @Test
+    public void shouldReturnTheStoredOrderWithoutRunningTheCheckout() {
+        Order order = order(7L);
+        when(checkoutKeyRepository.findOrderId(1L, "key")).thenReturn(Optional.of(7L));
+        when(orderRepository.findWithItemsByOrderId(7L)).thenReturn(Optional.of(order));
+
+        assertSame(order, checkoutIdempotency.execute(1L, "key", () -> fail("Checkout ran twice")));
+    }
+
+    @Test
+    public void shouldReturnTheWinningOrderWhenAnotherInstanceRecordedTheKeyFirst() {
+        Order order = order(7L);
+        when(checkoutKeyRepository.findOrderId(1L, "key")).thenReturn(Optional.empty(), Optional.of(7L));
+        when(orderRepository.findWithItemsByOrderId(7L)).thenReturn(Optional.of(order));
+
+        assertSame(order, checkoutIdempotency.execute(1L, "key", () -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        }));
+    }
+
+    @Test
+    public void shouldNotRememberFailedCheckouts() {
+        when(checkoutKeyRepository.findOrderId(1L, "key")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> checkoutIdempotency.execute(1L, "key", () -> {
+            throw new IllegalStateException("out of stock");
+        }));
+        Order order = order(8L);
+
+        assertSame(order, checkoutIdempotency.execute(1L, "key", () -> order));
+    }
+
+    @Test
+    public void shouldRejectOverlongKeys() {
+        assertThrows(ResponseStatusException.class, () ->
+                checkoutIdempotency.execute(1L, "k".repeat(CheckoutIdempotency.MAX_KEY_LENGTH + 1), () -> order(1L)));
+    }
+
+    private static Order order(Long orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
@@ -0,0 +1,123 @@
+package com.onlinestore.art_supplies.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ObjectProvider<OutboxHandler<?>> handlers;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    RecordingHandler handler = new RecordingHandler();
+
+    OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(handlers.orderedStream()).thenAnswer(invocation -> Stream.of(handler));
+        outboxDispatcher = new OutboxDispatcher(outboxEventRepository, new ObjectMapper(), transactionManager,
+                handlers, meterRegistry, true, 100, 3, Duration.ofSeconds(1), Duration.ofSeconds(3),
+                Duration.ofDays(7));
+        lenient().when(outboxEventRepository.findBacklog()).thenReturn(new OutboxBacklog(0, null));
+    }
+
+    @Test
+    public void shouldHandleDueEventsAndMarkThemProcessed() {
+        when(outboxEventRepository.findDue(any(), any())).thenReturn(List.of(event(1L, "test", "\"first\"", 0),
+                event(2L, "other", "\"ignored\"", 0)));
+
+        assertEquals(2, outboxDispatcher.dispatch());
+
+        assertEquals(List.of("first"), handler.payloads);
+        verify(outboxEventRepository).markProcessed(eq(1L), any());
+        verify(outboxEventRepository).markProcessed(eq(2L), any());
+        assertEquals(2, meterRegistry.get("outbox.events").tag("outcome", "processed").counter().count());
+    }
+
+    @Test
+    public void shouldScheduleARetryWhenAHandlerFails() {
+        handler.failWith = new IllegalStateException("mail server down");
+        when(outboxEventRepository.findDue(any(), any())).thenReturn(List.of(event(1L, "test", "\"first\"", 1)));
+
+        outboxDispatcher.dispatch();
+
+        verify(outboxEventRepository, never()).markProcessed(anyLong(), any());
+        verify(outboxEventRepository).markFailed(eq(1L), eq(OutboxEvent.Status.PENDING), eq(2),
+                argThat(next -> next.isAfter(LocalDateTime.now().plusSeconds(1))), eq("mail server down"));
+    }
+
+    @Test
+    public void shouldGiveUpAfterTheLastAttempt() {
+        handler.failWith = new IllegalStateException("mail server down");
+        when(outboxEventRepository.findDue(any(), any())).thenReturn(List.of(event(1L, "test", "\"first\"", 2)));
+
+        outboxDispatcher.dispatch();
+
+        verify(outboxEventRepository).markFailed(eq(1L), eq(OutboxEvent.Status.DEAD), eq(3), any(), any());
+        assertEquals(1, meterRegistry.get("outbox.events").tag("outcome", "dead").counter().count());
+    }
+
+    @Test
+    public void shouldBackOffExponentiallyUpToTheLimit() {
+        assertEquals(Duration.ofSeconds(1), outboxDispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(2), outboxDispatcher.backoff(2));
+        assertEquals(Duration.ofSeconds(3), outboxDispatcher.backoff(3));
+        assertEquals(Duration.ofSeconds(3), outboxDispatcher.backoff(60));
+    }
+
+    private static OutboxEvent event(Long id, String type, String payload, int attempts) {
+        OutboxEvent event = new OutboxEvent(type, 1L, payload, LocalDateTime.now().minusSeconds(1));
+        event.setId(id);
+        event.setAttempts(attempts);
+        return event;
+    }
+
+    static class RecordingHandler implements OutboxHandler<String> {
+        final List<String> payloads = new ArrayList<>();
+        RuntimeException failWith;
+
+        @Override
+        public String eventType() {
+            return "test";
+        }
+
+        @Override
+        public Class<String> payloadType() {
+            return String.class;
+        }
+
+        @Override
+        public void handle(String payload) {
+            if (failWith != null) {
+                throw failWith;
+            }
+            payloads.add(payload);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.onlinestore.art_supplies.products;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    AtomicLong now = new AtomicLong();
+
+    InventoryLedger inventoryLedger;
+
+    @BeforeEach
+    public void setUp() {
+        inventoryLedger = new InventoryLedger(productRepository, eventPublisher, true, Duration.ofMinutes(15),
+                Duration.ofSeconds(1), Duration.ofMillis(250), now::get);
+        lenient().when(productRepository.findQuantityByProductId(1L)).thenReturn(Optional.of(5));
+        lenient().when(productRepository.findQuantityByProductId(2L)).thenReturn(Optional.of(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldNotHoldMoreThanIsAvailable() {
+        inventoryLedger.hold(10L, 1L, 3);
+        inventoryLedger.hold(10L, 1L, 4);
+
+        assertThrows(InsufficientStockException.class, () -> inventoryLedger.hold(20L, 1L, 2));
+        assertEquals(1, inventoryLedger.available(1L));
+        verify(productRepository, times(1)).findQuantityByProductId(1L);
+    }
+
+    @Test
+    public void shouldReadTheQuantityWithoutHoldingTheProductLockAndRetryAfterARefresh() {
+        when(productRepository.findQuantityByProductId(3L))
+                .thenAnswer(invocation -> {
+                    // an admin edit refreshes the product from another thread while the first read is in flight
+                    CompletableFuture.runAsync(() -> inventoryLedger.refresh(3L)).get(5, TimeUnit.SECONDS);
+                    return Optional.of(5);
+                })
+                .thenReturn(Optional.of(8));
+
+        inventoryLedger.hold(10L, 3L, 1);
+
+        assertEquals(7, inventoryLedger.available(3L));
+        verify(productRepository, times(3)).findQuantityByProductId(3L);
+    }
+
+    @Test
+    public void shouldReleaseExpiredHolds() {
+        inventoryLedger.hold(10L, 1L, 5);
+        assertEquals(0, inventoryLedger.available(1L));
+
+        now.addAndGet(Duration.ofMinutes(16).toNanos());
+        inventoryLedger.expireHolds();
+
+        assertEquals(5, inventoryLedger.available(1L));
+    }
+
+    @Test
+    public void shouldWriteBackCommittedReservationsInOneBatch() {
+        inventoryLedger.hold(10L, 1L, 2);
+        inventoryLedger.reserve(10L, Map.of(1L, 2, 2L, 1));
+
+        assertEquals(3, inventoryLedger.available(1L));
+        assertEquals(0, inventoryLedger.available(2L));
+        assertEquals(2, inventoryLedger.flush());
+        verify(productRepository).subtractStock(new TreeMap<>(Map.of(1L, 2, 2L, 1)));
+        verify(eventPublisher).publishEvent(any(InventoryLedger.StockChangedEvent.class));
+
+        assertEquals(0, inventoryLedger.flush());
+        assertEquals(3, inventoryLedger.available(1L));
+    }
+
+    @Test
+    public void shouldRejectTheWholeReservationAndReportEveryShortProduct() {
+        inventoryLedger.hold(20L, 2L, 1);
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class, () ->
+                inventoryLedger.reserve(10L, Map.of(1L, 2, 2L, 1)));
+
+        assertEquals(List.of(2L), exception.getProductIds());
+        assertEquals(5, inventoryLedger.available(1L));
+    }
+
+    @Test
+    public void shouldRejectAReservationOfANonPositiveQuantity() {
+        inventoryLedger.hold(10L, 1L, 2);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                inventoryLedger.reserve(10L, Map.of(1L, 2, 2L, -5)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(3, inventoryLedger.available(1L));
+        verify(productRepository, never()).findQuantityByProductId(2L);
+    }
+
+    @Test
+    public void shouldRestoreStockAndHoldsWhenTheCheckoutRollsBack() {
+        inventoryLedger.hold(10L, 1L, 2);
+        TransactionSynchronizationManager.initSynchronization();
+
+        inventoryLedger.reserve(10L, Map.of(1L, 2));
+        assertEquals(3, inventoryLedger.available(1L));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(3, inventoryLedger.available(1L));
+        inventoryLedger.release(10L, 1L);
+        assertEquals(5, inventoryLedger.available(1L));
+        assertEquals(0, inventoryLedger.flush());
+        verify(productRepository, never()).subtractStock(any());
+    }
+}
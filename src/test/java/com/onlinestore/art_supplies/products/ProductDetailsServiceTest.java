@@ -0,0 +1,109 @@
+package com.onlinestore.art_supplies.products;
+
+import com.onlinestore.art_supplies.config.QueryCounter;
+import com.onlinestore.art_supplies.dto.ProductDetailsView;
+import com.onlinestore.art_supplies.dto.ProductResponse;
+import com.onlinestore.art_supplies.dto.ReviewResponse;
+import com.onlinestore.art_supplies.order.PurchaseHistory;
+import com.onlinestore.art_supplies.ratings.RatingService;
+import com.onlinestore.art_supplies.reviews.ReviewRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDetailsServiceTest {
+
+    @Mock
+    ProductService productService;
+
+    @Mock
+    RatingService ratingService;
+
+    @Mock
+    ReviewRepository reviewRepository;
+
+    @Mock
+    PurchaseHistory purchaseHistory;
+
+    @Mock
+    UserService userService;
+
+    @Mock
+    HttpServletRequest request;
+
+    ProductDetailsService productDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        productDetailsService = new ProductDetailsService(productService, ratingService, reviewRepository,
+                purchaseHistory, userService, new QueryCounter(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void shouldComputeReviewPermissionsWithoutLoadingEachReview() {
+        User user = new User();
+        user.setUserId(1L);
+        user.setIsAdmin(false);
+        Product product = new Product();
+        product.setProductId(5L);
+        ReviewResponse ownReview = new ReviewResponse(10L, 5L, 1L, "ion", "Great", null);
+        ReviewResponse otherReview = new ReviewResponse(11L, 5L, 2L, "ana", "Fine", null);
+
+        when(userService.getAuthenticatedUser(request)).thenReturn(user);
+        when(productService.getProductById(5L)).thenReturn(ProductResponse.from(product));
+        when(ratingService.getAverageRating(5L)).thenReturn(4.5);
+        when(reviewRepository.findResponsesByProductId(5L)).thenReturn(List.of(ownReview, otherReview));
+        when(purchaseHistory.hasPurchased(1L, 5L)).thenReturn(true);
+
+        ProductDetailsView details = productDetailsService.getProductDetails(5L, request);
+
+        assertEquals(4.5, details.averageRating());
+        assertTrue(details.canReview());
+        assertTrue(details.canRate());
+        assertTrue(details.canEditMap().get(10L));
+        assertFalse(details.canEditMap().get(11L));
+        assertTrue(details.canDeleteMap().get(10L));
+        assertFalse(details.canDeleteMap().get(11L));
+        verify(purchaseHistory, times(1)).hasPurchased(1L, 5L);
+        verify(reviewRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void shouldNotCheckPurchasesForAnonymousUsers() {
+        Product product = new Product();
+        product.setProductId(5L);
+
+        when(productService.getProductById(5L)).thenReturn(ProductResponse.from(product));
+        when(reviewRepository.findResponsesByProductId(5L)).thenReturn(List.of());
+
+        ProductDetailsView details = productDetailsService.getProductDetails(5L, request);
+
+        assertEquals(0.0, details.averageRating());
+        assertFalse(details.canReview());
+        assertFalse(details.canRate());
+        verifyNoInteractions(purchaseHistory);
+    }
+
+    @Test
+    public void shouldThrowNotFoundForAMissingProduct() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                productDetailsService.getProductDetails(99L, request));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verifyNoInteractions(reviewRepository);
+    }
+}
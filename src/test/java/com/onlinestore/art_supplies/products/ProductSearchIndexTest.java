@@ -0,0 +1,76 @@
+package com.onlinestore.art_supplies.products;
+
+import com.onlinestore.art_supplies.category.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    ProductRepository productRepository;
+
+    ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        productSearchIndex = new ProductSearchIndex(productRepository);
+    }
+
+    private Product product(Long id, String name, String description, String categoryName) {
+        Category category = new Category();
+        category.setCategoryName(categoryName);
+        Product product = new Product();
+        product.setProductId(id);
+        product.setProductName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        return product;
+    }
+
+    @Test
+    public void shouldRankProductsByTermFrequency() {
+        productSearchIndex.index(product(1L, "Round Brush", "Soft synthetic hair", "Brushes"));
+        productSearchIndex.index(product(2L, "Brush Set", "Brush set with a brush case", "Brushes"));
+        productSearchIndex.index(product(3L, "Canvas Board", "Cotton canvas", "Canvases"));
+
+        assertEquals(List.of(2L, 1L), productSearchIndex.search("brush"));
+        assertEquals(List.of(3L), productSearchIndex.search("CANVAS"));
+    }
+
+    @Test
+    public void shouldRequireEveryQueryTokenToMatch() {
+        productSearchIndex.index(product(1L, "Round Brush", "Soft synthetic hair", "Brushes"));
+        productSearchIndex.index(product(2L, "Flat Brush", "Stiff bristles", "Brushes"));
+
+        assertEquals(List.of(1L), productSearchIndex.search("soft brush"));
+        assertTrue(productSearchIndex.search("soft canvas").isEmpty());
+    }
+
+    @Test
+    public void shouldReflectUpdatesAndDeletes() {
+        productSearchIndex.index(product(1L, "Round Brush", "Soft synthetic hair", "Brushes"));
+        productSearchIndex.index(product(1L, "Palette Knife", "Steel blade", "Tools"));
+
+        assertTrue(productSearchIndex.search("brush").isEmpty());
+        assertEquals(List.of(1L), productSearchIndex.search("knife"));
+
+        productSearchIndex.remove(1L);
+        assertTrue(productSearchIndex.search("knife").isEmpty());
+    }
+
+    @Test
+    public void shouldReturnAnEmptyListForBlankQueries() {
+        productSearchIndex.index(product(1L, "Round Brush", "Soft synthetic hair", "Brushes"));
+
+        assertTrue(productSearchIndex.search(null).isEmpty());
+        assertTrue(productSearchIndex.search("  ").isEmpty());
+    }
+}
@@ -2,16 +2,24 @@ package com.onlinestore.art_supplies.products;
 
 import com.onlinestore.art_supplies.category.Category;
 import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.config.CacheConfig;
+import com.onlinestore.art_supplies.dto.CursorPage;
+import com.onlinestore.art_supplies.dto.ProductResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +33,15 @@ class ProductServiceTest {
     @Mock
     CategoryRepository categoryRepository;
 
+    @Mock
+    ProductSearchIndex productSearchIndex;
+
+    @Mock
+    CacheManager cacheManager;
+
+    @Mock
+    InventoryLedger inventoryLedger;
+
     @InjectMocks
     ProductService productService;
 
@@ -60,18 +77,18 @@ class ProductServiceTest {
         product.setProductId(1L);
         product.setProductName("Test Product");
 
-        when(productRepository.findById(1L)).thenReturn(java.util.Optional.of(product));
+        when(productRepository.findResponseById(1L)).thenReturn(java.util.Optional.of(ProductResponse.from(product)));
 
-        Product foundProduct = productService.getProductById(1L);
+        ProductResponse foundProduct = productService.getProductById(1L);
         assertNotNull(foundProduct);
-        assertEquals("Test Product", foundProduct.getProductName());
+        assertEquals("Test Product", foundProduct.productName());
     }
 
     @Test
     public void shouldReturnNullWhenProductNotFoundById() {
-        when(productRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        when(productRepository.findResponseById(1L)).thenReturn(java.util.Optional.empty());
 
-        Product foundProduct = productService.getProductById(1L);
+        ProductResponse foundProduct = productService.getProductById(1L);
         assertNull(foundProduct);
     }
 
@@ -142,15 +159,30 @@ class ProductServiceTest {
 
         when(productRepository.searchProducts(keyword)).thenReturn(List.of(product1, product2));
 
-        List<Product> products = productService.searchProducts(keyword);
+        List<ProductResponse> products = productService.searchProducts(keyword);
         assertEquals(2, products.size());
     }
 
+    @Test
+    public void shouldReturnProductsInIndexRankOrderWhenIndexIsReady() {
+        String keyword = "brush";
+        ProductResponse product1 = productResponse(1L, "Flat Brush");
+        ProductResponse product2 = productResponse(2L, "Round Brush");
+
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(keyword)).thenReturn(List.of(2L, 1L));
+        when(productRepository.findResponsesByProductIdIn(List.of(2L, 1L))).thenReturn(List.of(product1, product2));
+
+        List<ProductResponse> products = productService.searchProducts(keyword);
+        assertEquals(List.of(product2, product1), products);
+        verify(productRepository, never()).searchProducts(anyString());
+    }
+
     @Test
     public void shouldReturnAnEmptyListWhenNoKeywordProvided() {
-        List<Product> resultWithNull = productService.searchProducts(null);
-        List<Product> resultWithEmpty = productService.searchProducts("");
-        List<Product> resultWithSpaces = productService.searchProducts("   ");
+        List<ProductResponse> resultWithNull = productService.searchProducts(null);
+        List<ProductResponse> resultWithEmpty = productService.searchProducts("");
+        List<ProductResponse> resultWithSpaces = productService.searchProducts("   ");
 
         assertTrue(resultWithNull.isEmpty(), "Expected empty list when keyword is null");
         assertTrue(resultWithEmpty.isEmpty(), "Expected empty list when keyword is empty");
@@ -209,4 +241,95 @@ class ProductServiceTest {
             productService.updateProduct(productId, updatedProduct);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReturnAKeysetPageWithACursorToTheNextPage() {
+        ProductResponse product1 = productResponse(4L, "Sketchbook");
+        ProductResponse product2 = productResponse(7L, "Charcoal");
+        ProductResponse product3 = productResponse(9L, "Easel");
+
+        when(productRepository.findNextPage(0L, null, null, Limit.of(3))).thenReturn(List.of(product1, product2, product3));
+        when(productRepository.findNextPage(7L, null, null, Limit.of(3))).thenReturn(List.of(product3));
+
+        CursorPage<ProductResponse> firstPage = productService.getFilteredProductsAfter(null, 2, "", "", false);
+        assertEquals(List.of(product1, product2), firstPage.content());
+        assertTrue(firstPage.hasNext());
+        assertNull(firstPage.totalElements());
+
+        CursorPage<ProductResponse> secondPage = productService.getFilteredProductsAfter(firstPage.nextCursor(), 2, "", "", false);
+        assertEquals(List.of(product3), secondPage.content());
+        assertFalse(secondPage.hasNext());
+        assertNull(secondPage.nextCursor());
+        verify(productRepository, never()).countFiltered(any(), any());
+    }
+
+    @Test
+    public void shouldPageSearchResultsFromTheDatabaseUntilTheIndexIsReady() {
+        ProductResponse product1 = productResponse(3L, "Flat Brush");
+        ProductResponse product2 = productResponse(8L, "Round Brush");
+        ProductResponse product3 = productResponse(12L, "Fan Brush");
+
+        when(productRepository.searchNextPage(0L, "brush", Limit.of(3))).thenReturn(List.of(product1, product2, product3));
+        when(productRepository.searchNextPage(8L, "brush", Limit.of(3))).thenReturn(List.of(product3));
+        when(productRepository.countSearch("brush")).thenReturn(3L);
+
+        CursorPage<ProductResponse> firstPage = productService.searchProducts("brush", null, 2);
+        assertEquals(List.of(product1, product2), firstPage.content());
+        assertEquals(3L, firstPage.totalElements());
+
+        CursorPage<ProductResponse> secondPage = productService.searchProducts("brush", firstPage.nextCursor(), 2);
+        assertEquals(List.of(product3), secondPage.content());
+        assertFalse(secondPage.hasNext());
+        verify(productSearchIndex, never()).searchHits(anyString());
+    }
+
+    @Test
+    public void shouldRejectAMalformedCursor() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                productService.getFilteredProductsAfter("not a cursor!", 6, null, null, false));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    public void shouldDecrementStockInProductIdOrder() {
+        when(productRepository.decrementStock(any())).thenReturn(List.of());
+
+        productService.decrementStock(Map.of(9L, 1, 2L, 3, 5L, 2));
+
+        verify(productRepository).decrementStock(argThat(quantities ->
+                List.copyOf(quantities.keySet()).equals(List.of(2L, 5L, 9L))));
+    }
+
+    @Test
+    public void shouldEvictOnlyTheCategoryListsOfProductsWhoseStockChanged() {
+        Product brush = new Product();
+        brush.setProductId(5L);
+        Cache products = mock(Cache.class);
+        Cache categoryProducts = mock(Cache.class);
+        when(productRepository.findResponsesByCategoryName("Brushes")).thenReturn(List.of(ProductResponse.from(brush)));
+        when(cacheManager.getCache(CacheConfig.PRODUCTS)).thenReturn(products);
+        when(cacheManager.getCache(CacheConfig.CATEGORY_PRODUCTS)).thenReturn(categoryProducts);
+        productService.getProductsByCategoryName("Brushes");
+
+        productService.onStockChanged(new InventoryLedger.StockChangedEvent(Set.of(5L, 6L)));
+
+        verify(products).evict(5L);
+        verify(products).evict(6L);
+        verify(categoryProducts).evict("brushes");
+        verifyNoMoreInteractions(categoryProducts);
+    }
+
+    @Test
+    public void shouldReportEveryProductWithoutEnoughStock() {
+        when(productRepository.decrementStock(any())).thenReturn(List.of(2L, 9L));
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class, () ->
+                productService.decrementStock(Map.of(9L, 1, 2L, 3, 5L, 2)));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(List.of(2L, 9L), exception.getProductIds());
+    }
+
+    private ProductResponse productResponse(Long productId, String productName) {
+        return new ProductResponse(productId, productName, null, null, 0, null, null, null);
+    }
+}
@@ -0,0 +1,42 @@
+package com.onlinestore.art_supplies.products;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductStockRepositoryImplTest {
+
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    ProductStockRepositoryImpl repository = new ProductStockRepositoryImpl(jdbcTemplate);
+
+    @Test
+    public void shouldReportProductsWhoseGuardedUpdateMatchedNoRow() {
+        returnUpdateCounts(1, 0, 1);
+
+        assertEquals(List.of(5L), repository.decrementStock(new TreeMap<>(Map.of(2L, 1, 5L, 1, 9L, 1))));
+    }
+
+    @Test
+    public void shouldFailWhenTheDriverDoesNotReportTheUpdateCount() {
+        returnUpdateCounts(1, Statement.SUCCESS_NO_INFO);
+
+        assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class, () ->
+                repository.decrementStock(new TreeMap<>(Map.of(2L, 1, 5L, 1))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void returnUpdateCounts(int... updateCounts) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{updateCounts});
+    }
+}
@@ -0,0 +1,92 @@
+package com.onlinestore.art_supplies.ratings;
+
+import com.onlinestore.art_supplies.category.Category;
+import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class RatingStatsServiceTest {
+
+    @Autowired
+    RatingStatsService ratingStatsService;
+
+    @Autowired
+    ProductRatingStatsRepository statsRepository;
+
+    @Autowired
+    RatingRepository ratingRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Product product;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Stats " + UUID.randomUUID()));
+        product = productRepository.save(new Product(null, "Easel", "wooden easel", BigDecimal.TEN, 5, category, "http://x"));
+    }
+
+    @Test
+    public void shouldCreateTheRowOnTheFirstRatingAndIncrementAfterwards() {
+        ratingStatsService.recordRating(product.getProductId(), 5);
+        ratingStatsService.recordRating(product.getProductId(), 2);
+
+        ProductRatingStats stats = ratingStatsService.getStats(product.getProductId()).orElseThrow();
+
+        assertEquals(2, stats.getRatingCount());
+        assertEquals(7, stats.getRatingSum());
+        assertEquals(List.of(0L, 1L, 0L, 0L, 1L), stats.getDistribution());
+    }
+
+    @Test
+    public void shouldNotResetARowThatAlreadyExists() {
+        ratingStatsService.recordRating(product.getProductId(), 4);
+
+        int inserted = transactionTemplate.execute(status -> statsRepository.insertIfAbsent(product.getProductId()));
+
+        assertEquals(0, inserted);
+        assertEquals(1, ratingStatsService.getStats(product.getProductId()).orElseThrow().getRatingCount());
+    }
+
+    @Test
+    public void shouldRebuildTheTotalsFromTheRatings() {
+        User user = userRepository.save(new User(null, "rater-" + UUID.randomUUID(), "pw", "R", "r@example.com",
+                "0700000000", false));
+        ratingRepository.save(new Rating(null, user, product, 3));
+        ratingRepository.save(new Rating(null, user, product, 5));
+        ratingStatsService.recordRating(product.getProductId(), 1);
+
+        ratingStatsService.rebuild();
+
+        ProductRatingStats stats = ratingStatsService.getStats(product.getProductId()).orElseThrow();
+        assertEquals(2, stats.getRatingCount());
+        assertEquals(8, stats.getRatingSum());
+        assertEquals(List.of(0L, 0L, 1L, 0L, 1L), stats.getDistribution());
+    }
+}
@@ -0,0 +1,85 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.config.security.CustomAuthenticationFilter;
+import com.onlinestore.art_supplies.dto.TopSellerResponse;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("h2")
+@WebMvcTest(SalesReportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class SalesReportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    CustomAuthenticationFilter customAuthenticationFilter;
+
+    @Test
+    public void shouldServeTopSellersToAdmins() throws Exception {
+        when(userService.getAuthenticatedUser(any())).thenReturn(user(true));
+        when(salesRollupService.getTopSellers(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), 3L, 5))
+                .thenReturn(List.of(new TopSellerResponse(7L, "Easel", 4L, new BigDecimal("40.00"))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/sales/top-sellers")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-31")
+                        .param("categoryId", "3")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productId").value(7))
+                .andExpect(jsonPath("$[0].units").value(4));
+    }
+
+    @Test
+    public void shouldRebuildForAdmins() throws Exception {
+        when(userService.getAuthenticatedUser(any())).thenReturn(user(true));
+        when(salesRollupService.rebuild()).thenReturn(12L);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/sales/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("12"));
+    }
+
+    @Test
+    public void shouldForbidReportsToOtherUsers() throws Exception {
+        when(userService.getAuthenticatedUser(any())).thenReturn(user(false));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/sales/revenue")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-31"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/sales/rebuild"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(salesRollupService);
+    }
+
+    private static User user(boolean admin) {
+        User user = new User();
+        user.setUserId(1L);
+        user.setIsAdmin(admin);
+        return user;
+    }
+}
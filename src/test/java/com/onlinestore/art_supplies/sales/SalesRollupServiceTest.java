@@ -0,0 +1,217 @@
+package com.onlinestore.art_supplies.sales;
+
+import com.onlinestore.art_supplies.category.Category;
+import com.onlinestore.art_supplies.category.CategoryRepository;
+import com.onlinestore.art_supplies.dto.DailySalesResponse;
+import com.onlinestore.art_supplies.dto.TopSellerResponse;
+import com.onlinestore.art_supplies.order.Order;
+import com.onlinestore.art_supplies.order.OrderPlacedEvent;
+import com.onlinestore.art_supplies.order.OrderRepository;
+import com.onlinestore.art_supplies.order.orderitem.OrderItem;
+import com.onlinestore.art_supplies.outbox.Outbox;
+import com.onlinestore.art_supplies.outbox.OutboxDispatcher;
+import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductRepository;
+import com.onlinestore.art_supplies.users.User;
+import com.onlinestore.art_supplies.users.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// own database and no background dispatch, so only the test moves outbox events
+@SpringBootTest(properties = {"outbox.dispatcher.enabled=false", "spring.datasource.url=jdbc:h2:mem:salesrollup",
+        "sales.rollup.backfill-chunk-size=2"})
+@ActiveProfiles("h2")
+class SalesRollupServiceTest {
+    static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    @Autowired
+    SalesRollupService salesRollupService;
+
+    @Autowired
+    SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    DailyProductSalesRepository productSalesRepository;
+
+    @Autowired
+    OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    Outbox outbox;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Category category;
+    Product product;
+    User user;
+
+    @BeforeEach
+    public void setUp() {
+        category = categoryRepository.save(new Category(null, "Rollup " + UUID.randomUUID()));
+        product = productRepository.save(new Product(null, "Palette", "mixing palette", BigDecimal.TEN, 100, category,
+                "http://x"));
+        user = userRepository.save(new User(null, "buyer-" + UUID.randomUUID(), "pw", "B", "b@example.com",
+                "0700000000", false));
+    }
+
+    @Test
+    public void shouldLeaveOrdersWhoseEventIsPendingToTheirEvent() {
+        placeOrder(2);
+        outboxDispatcher.dispatch();
+        placeOrder(3);
+
+        salesRollupService.rebuild();
+        assertEquals(2, unitsSold());
+
+        outboxDispatcher.dispatch();
+        assertEquals(5, unitsSold());
+    }
+
+    @Test
+    public void shouldAddToExistingRowsAndInsertTheMissingOnes() {
+        Product other = productRepository.save(new Product(null, "Spatula", "palette knife", BigDecimal.ONE, 100,
+                category, "http://x"));
+        LocalDate day = DAY.minusDays(1);
+        transactionTemplate.executeWithoutResult(status ->
+                salesRollupRepository.addProductSales(day, Map.of(key(product, category.getCategoryId()), totals(2, "10.00"))));
+
+        transactionTemplate.executeWithoutResult(status -> salesRollupRepository.addProductSales(day, Map.of(
+                key(product, category.getCategoryId()), totals(1, "10.00"),
+                key(other, category.getCategoryId()), totals(4, "1.00"),
+                key(other, null), totals(1, "1.00"))));
+        transactionTemplate.executeWithoutResult(status ->
+                salesRollupRepository.addProductSales(day, Map.of(key(other, null), totals(2, "1.00"))));
+
+        DailyProductSales first = productSales(day, product, category.getCategoryId());
+        DailyProductSales second = productSales(day, other, category.getCategoryId());
+        DailyProductSales uncategorized = productSales(day, other, null);
+        assertEquals(3, first.getUnits());
+        assertEquals(0, new BigDecimal("30.00").compareTo(first.getRevenue()));
+        assertEquals(4, second.getUnits());
+        assertEquals(0, new BigDecimal("4.00").compareTo(second.getRevenue()));
+        assertEquals(3, uncategorized.getUnits());
+    }
+
+    @Test
+    public void shouldBackfillEveryOrderLineAcrossChunks() {
+        for (int quantity = 1; quantity <= 5; quantity++) {
+            placeOrder(quantity);
+        }
+        while (outboxDispatcher.dispatch() > 0) {
+            // drain the events of this and earlier tests
+        }
+
+        long lines = salesRollupService.rebuild();
+
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class), lines);
+        assertEquals(15, unitsSold());
+    }
+
+    @Test
+    public void shouldCountOrdersUnderTheCategoryTheyWerePlacedIn() {
+        placeOrder(2);
+        outboxDispatcher.dispatch();
+        product.setCategory(categoryRepository.save(new Category(null, "Moved " + UUID.randomUUID())));
+        productRepository.save(product);
+
+        salesRollupService.rebuild();
+
+        List<DailySalesResponse> revenue = salesRollupService.getRevenueByDay(DAY, DAY, category.getCategoryId());
+        assertEquals(1, revenue.size());
+        assertEquals(2, revenue.get(0).units());
+        assertTrue(salesRollupService.getRevenueByDay(DAY, DAY, product.getCategory().getCategoryId()).isEmpty());
+        assertEquals(2, unitsSold());
+        assertTrue(salesRollupService.getTopSellers(DAY, DAY, product.getCategory().getCategoryId(), 10).isEmpty());
+    }
+
+    @Test
+    public void shouldSplitTheTopSellersOfAProductThatChangedCategory() {
+        Category moved = categoryRepository.save(new Category(null, "Moved " + UUID.randomUUID()));
+        placeOrder(2);
+        outboxDispatcher.dispatch();
+        product.setCategory(moved);
+        productRepository.save(product);
+        placeOrder(3, moved);
+        outboxDispatcher.dispatch();
+
+        assertEquals(2, unitsSold());
+        assertEquals(3L, salesRollupService.getTopSellers(DAY, DAY, moved.getCategoryId(), 10).get(0).units());
+        assertEquals(5L, salesRollupService.getTopSellers(DAY, DAY, null, 10).stream()
+                .filter(topSeller -> topSeller.productId().equals(product.getProductId()))
+                .findFirst().orElseThrow().units());
+    }
+
+    private static SalesTotals totals(int quantity, String price) {
+        SalesTotals totals = new SalesTotals();
+        totals.add(quantity, new BigDecimal(price));
+        return totals;
+    }
+
+    private static SalesRollupRepository.ProductKey key(Product product, Long categoryId) {
+        return new SalesRollupRepository.ProductKey(product.getProductId(), categoryId);
+    }
+
+    private DailyProductSales productSales(LocalDate day, Product product, Long categoryId) {
+        return productSalesRepository.findAll().stream()
+                .filter(sales -> sales.getSaleDate().equals(day) && sales.getProductId().equals(product.getProductId())
+                        && Objects.equals(sales.getCategoryId(), categoryId))
+                .findFirst().orElseThrow();
+    }
+
+    private void placeOrder(int quantity) {
+        placeOrder(quantity, category);
+    }
+
+    private void placeOrder(int quantity, Category orderCategory) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderDate(DAY.atTime(12, 0));
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setCategoryId(orderCategory.getCategoryId());
+            orderItem.setQuantity(quantity);
+            orderItem.setPrice(product.getPrice());
+            orderItem.setOrder(order);
+            order.setOrderItems(List.of(orderItem));
+            order.setTotalAmount(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            orderRepository.save(order);
+            outbox.publish(OrderPlacedEvent.TYPE, order.getOrderId(), OrderPlacedEvent.from(order));
+        });
+    }
+
+    private long unitsSold() {
+        List<TopSellerResponse> topSellers = salesRollupService.getTopSellers(DAY, DAY, category.getCategoryId(), 10);
+        return topSellers.isEmpty() ? 0 : topSellers.get(0).units();
+    }
+}
@@ -0,0 +1,80 @@
+package com.onlinestore.art_supplies.users;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    CustomUserDetailsService customUserDetailsService;
+
+    User user = new User(1L, "ana", "hash", "Ana", "ana@example.com", "0700000000", true);
+
+    @BeforeEach
+    public void setUp() {
+        customUserDetailsService = new CustomUserDetailsService(userRepository, new SimpleMeterRegistry(),
+                "maximumSize=100,expireAfterWrite=5m");
+        lenient().when(userRepository.findByUsername("ana")).thenAnswer(invocation -> Optional.of(copy(user)));
+    }
+
+    @Test
+    public void shouldServeTheCachedPrincipalWithoutThePasswordHash() {
+        UserPrincipal first = customUserDetailsService.loadPrincipal("ana");
+        UserPrincipal second = customUserDetailsService.loadPrincipal("ana");
+
+        assertSame(first, second);
+        assertNull(first.getPassword());
+        assertEquals(1L, first.getUserId());
+        assertTrue(first.isAdmin());
+        verify(userRepository, times(1)).findByUsername("ana");
+    }
+
+    @Test
+    public void shouldNotShareTheCachedPrincipalsUser() {
+        User copy = customUserDetailsService.loadPrincipal("ana").toUser();
+        copy.setIsAdmin(false);
+
+        assertTrue(customUserDetailsService.loadPrincipal("ana").toUser().getIsAdmin());
+    }
+
+    @Test
+    public void shouldReadTheUserAgainOnceAChangeCommits() {
+        customUserDetailsService.loadPrincipal("ana");
+        user.setIsAdmin(false);
+
+        customUserDetailsService.onUserChanged(new UserChangedEvent("ana"));
+
+        assertFalse(customUserDetailsService.loadPrincipal("ana").isAdmin());
+        verify(userRepository, times(2)).findByUsername("ana");
+    }
+
+    @Test
+    public void shouldCheckLoginsAgainstTheStoredHashAndDropTheCachedPrincipalOnRehash() {
+        customUserDetailsService.loadPrincipal("ana");
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals("hash", customUserDetailsService.loadUserByUsername("ana").getPassword());
+        customUserDetailsService.updatePassword(customUserDetailsService.loadUserByUsername("ana"), "rehashed");
+        customUserDetailsService.loadPrincipal("ana");
+
+        verify(userRepository, times(5)).findByUsername("ana");
+    }
+
+    private static User copy(User user) {
+        return new User(user.getUserId(), user.getUsername(), user.getPassword(), user.getFullName(), user.getEmail(),
+                user.getPhone(), user.getIsAdmin());
+    }
+}
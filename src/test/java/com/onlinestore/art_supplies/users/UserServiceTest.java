@@ -0,0 +1,90 @@
+package com.onlinestore.art_supplies.users;
+
+import com.onlinestore.art_supplies.config.security.CustomAuthenticationFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    CustomAuthenticationFilter customAuthenticationFilter;
+
+    @Mock
+    CustomUserDetailsService customUserDetailsService;
+
+    @Mock
+    Claims claims;
+
+    @InjectMocks
+    UserService userService;
+
+    UserPrincipal principal = new UserPrincipal(new User(1L, "ana", "hash", "Ana", "ana@example.com", "0700000000",
+            false)).withoutPassword();
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void shouldReuseThePrincipalOfTheRequestsSecurityContext() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        when(customAuthenticationFilter.getVerifiedClaims(request)).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("ana");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        User first = userService.getAuthenticatedUser(request);
+        first.setIsAdmin(true);
+        User second = userService.getAuthenticatedUser(request);
+
+        assertEquals(1L, second.getUserId());
+        assertFalse(second.getIsAdmin());
+        assertNull(second.getPassword());
+        verifyNoInteractions(customUserDetailsService, userRepository);
+    }
+
+    @Test
+    public void shouldFallBackToThePrincipalCache() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        when(customAuthenticationFilter.getVerifiedClaims(request)).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("ana");
+        when(customUserDetailsService.loadPrincipal("ana")).thenReturn(principal);
+
+        assertEquals("ana", userService.getAuthenticatedUser(request).getUsername());
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    public void shouldReturnNullWithoutAToken() {
+        assertNull(userService.getAuthenticatedUser(new MockHttpServletRequest()));
+    }
+
+    @Test
+    public void shouldTreatAnInvalidTokenAsAnonymous() {
+        HttpServletRequest request = new MockHttpServletRequest();
+        when(customAuthenticationFilter.getVerifiedClaims(request))
+                .thenThrow(new ExpiredJwtException(null, claims, "JWT expired"));
+
+        assertNull(userService.getAuthenticatedUser(request));
+        verifyNoInteractions(customUserDetailsService);
+    }
+}
@@ -2,6 +2,7 @@ package com.onlinestore.art_supplies.view;
 
 import com.onlinestore.art_supplies.config.security.CustomAuthenticationFilter;
 import com.onlinestore.art_supplies.dto.LoginRequest;
+import com.onlinestore.art_supplies.order.cart.CartService;
 import com.onlinestore.art_supplies.users.User;
 import com.onlinestore.art_supplies.users.UserService;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,9 @@ class LoginRegisterViewControllerTest {
     @MockBean
     CustomAuthenticationFilter customAuthenticationFilter;
 
+    @MockBean
+    private CartService cartService;
+
     @Test
     public void testShowLoginPage() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/login"))
@@ -56,6 +60,8 @@ class LoginRegisterViewControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("/"))
                 .andExpect(cookie().exists("Authorization"));
+
+        verify(cartService).mergeAnonymousCart(eq("user"), any(), any());
     }
 
     @Test
@@ -2,7 +2,11 @@ package com.onlinestore.art_supplies.view;
 
 import com.onlinestore.art_supplies.category.Category;
 import com.onlinestore.art_supplies.category.CategoryService;
+import com.onlinestore.art_supplies.dto.ProductDetailsView;
+import com.onlinestore.art_supplies.dto.ProductResponse;
+import com.onlinestore.art_supplies.dto.ReviewResponse;
 import com.onlinestore.art_supplies.products.Product;
+import com.onlinestore.art_supplies.products.ProductDetailsService;
 import com.onlinestore.art_supplies.products.ProductService;
 import com.onlinestore.art_supplies.ratings.RatingService;
 import com.onlinestore.art_supplies.reviews.Review;
@@ -22,10 +26,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -42,6 +48,9 @@ class ProductViewControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductDetailsService productDetailsService;
+
     @MockBean
     private CategoryService categoryService;
 
@@ -148,24 +157,11 @@ class ProductViewControllerTest {
         product.setQuantity(5);
         product.setImage("http://example.com/image.jpg");
 
-        User user = new User();
-        user.setUsername("testuser");
-        user.setUserId(1L);
-
-        Review review = new Review();
-        review.setReviewText("Great product!");
-        review.setUser(user);
-        review.setReviewId(1L);
-
-        List<Review> reviews = List.of(review);
+        ReviewResponse review = new ReviewResponse(1L, 1L, 1L, "testuser", "Great product!", null);
+        ProductDetailsView details = new ProductDetailsView(ProductResponse.from(product), 4.5, List.of(review), false, false,
+                Map.of(1L, false), Map.of(1L, false), 4);
 
-        when(productService.getProductById(1L)).thenReturn(product);
-        when(userService.getAuthenticatedUser(any(HttpServletRequest.class))).thenReturn(user);
-        when(ratingService.getAverageRating(1L)).thenReturn(4.5);
-        when(reviewService.getReviewsByProductId(1L)).thenReturn(reviews);
-        when(reviewService.canUserEditReview(user, 1L)).thenReturn(false);
-        when(reviewService.canUserReviewProduct(user, 1L)).thenReturn(false);
-        when(ratingService.canUserRateProduct(user, 1L)).thenReturn(false);
+        when(productDetailsService.getProductDetails(eq(1L), any(HttpServletRequest.class))).thenReturn(details);
 
         mockMvc.perform(get("/products/show/{productId}", 1L))
                 .andExpect(status().isOk())
@@ -177,16 +173,10 @@ class ProductViewControllerTest {
                 .andExpect(model().attributeExists("canRate"))
                 .andExpect(model().attributeExists("canEditMap"))
                 .andExpect(model().attributeExists("canDeleteMap"))
-                .andExpect(model().attribute("product", product));
-
-        verify(productService).getProductById(1L);
-        verify(userService).getAuthenticatedUser(any(HttpServletRequest.class));
-        verify(ratingService).getAverageRating(1L);
-        verify(reviewService).getReviewsByProductId(1L);
-        verify(reviewService).canUserEditReview(user, 1L);
-        verify(reviewService).canUserReviewProduct(user, 1L);
-        verify(ratingService).canUserRateProduct(user, 1L);
+                .andExpect(model().attribute("product", ProductResponse.from(product)))
+                .andExpect(model().attribute("reviews", List.of(review)));
 
+        verify(productDetailsService).getProductDetails(eq(1L), any(HttpServletRequest.class));
     }
 
     @Test